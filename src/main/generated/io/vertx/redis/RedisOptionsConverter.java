@@ -36,18 +36,86 @@ public class RedisOptionsConverter {
     if (json.getValue("binary") instanceof Boolean) {
       obj.setBinary((Boolean)json.getValue("binary"));
     }
+    if (json.getValue("circuitBreakerThreshold") instanceof Number) {
+      obj.setCircuitBreakerThreshold(((Number)json.getValue("circuitBreakerThreshold")).intValue());
+    }
+    if (json.getValue("commandCoalescing") instanceof Boolean) {
+      obj.setCommandCoalescing((Boolean)json.getValue("commandCoalescing"));
+    }
+    if (json.getValue("commandTimeout") instanceof Number) {
+      obj.setCommandTimeout(((Number)json.getValue("commandTimeout")).longValue());
+    }
+    if (json.getValue("domainSocketAddress") instanceof String) {
+      obj.setDomainSocketAddress((String)json.getValue("domainSocketAddress"));
+    }
+    if (json.getValue("eagerConnect") instanceof Boolean) {
+      obj.setEagerConnect((Boolean)json.getValue("eagerConnect"));
+    }
     if (json.getValue("encoding") instanceof String) {
       obj.setEncoding((String)json.getValue("encoding"));
     }
+    if (json.getValue("eventLoopAffinity") instanceof Boolean) {
+      obj.setEventLoopAffinity((Boolean)json.getValue("eventLoopAffinity"));
+    }
     if (json.getValue("host") instanceof String) {
       obj.setHost((String)json.getValue("host"));
     }
     if (json.getValue("masterName") instanceof String) {
       obj.setMasterName((String)json.getValue("masterName"));
     }
+    if (json.getValue("maxBlockingPoolSize") instanceof Number) {
+      obj.setMaxBlockingPoolSize(((Number)json.getValue("maxBlockingPoolSize")).intValue());
+    }
+    if (json.getValue("maxInFlightCommands") instanceof Number) {
+      obj.setMaxInFlightCommands(((Number)json.getValue("maxInFlightCommands")).intValue());
+    }
+    if (json.getValue("maxPoolSize") instanceof Number) {
+      obj.setMaxPoolSize(((Number)json.getValue("maxPoolSize")).intValue());
+    }
+    if (json.getValue("maxReconnectInterval") instanceof Number) {
+      obj.setMaxReconnectInterval(((Number)json.getValue("maxReconnectInterval")).longValue());
+    }
+    if (json.getValue("nearCacheEviction") instanceof String) {
+      obj.setNearCacheEviction(io.vertx.redis.NearCacheEviction.valueOf((String)json.getValue("nearCacheEviction")));
+    }
+    if (json.getValue("nearCacheInvalidation") instanceof String) {
+      obj.setNearCacheInvalidation(io.vertx.redis.NearCacheInvalidation.valueOf((String)json.getValue("nearCacheInvalidation")));
+    }
+    if (json.getValue("nearCacheMaxSize") instanceof Number) {
+      obj.setNearCacheMaxSize(((Number)json.getValue("nearCacheMaxSize")).longValue());
+    }
+    if (json.getValue("nearCachePrefixes") instanceof JsonArray) {
+      java.util.ArrayList<java.lang.String> list = new java.util.ArrayList<>();
+      json.getJsonArray("nearCachePrefixes").forEach( item -> {
+        if (item instanceof String)
+          list.add((String)item);
+      });
+      obj.setNearCachePrefixes(list);
+    }
+    if (json.getValue("nearCachePrefixs") instanceof JsonArray) {
+      json.getJsonArray("nearCachePrefixs").forEach(item -> {
+        if (item instanceof String)
+          obj.addNearCachePrefix((String)item);
+      });
+    }
+    if (json.getValue("nearCacheTtl") instanceof Number) {
+      obj.setNearCacheTtl(((Number)json.getValue("nearCacheTtl")).longValue());
+    }
+    if (json.getValue("overflowPolicy") instanceof String) {
+      obj.setOverflowPolicy(io.vertx.redis.OverflowPolicy.valueOf((String)json.getValue("overflowPolicy")));
+    }
+    if (json.getValue("poolSelection") instanceof String) {
+      obj.setPoolSelection(io.vertx.redis.PoolSelection.valueOf((String)json.getValue("poolSelection")));
+    }
     if (json.getValue("port") instanceof Number) {
       obj.setPort(((Number)json.getValue("port")).intValue());
     }
+    if (json.getValue("readBufferCompactionThreshold") instanceof Number) {
+      obj.setReadBufferCompactionThreshold(((Number)json.getValue("readBufferCompactionThreshold")).intValue());
+    }
+    if (json.getValue("readDeduplication") instanceof Boolean) {
+      obj.setReadDeduplication((Boolean)json.getValue("readDeduplication"));
+    }
     if (json.getValue("select") instanceof Number) {
       obj.setSelect(((Number)json.getValue("select")).intValue());
     }
@@ -57,6 +125,18 @@ public class RedisOptionsConverter {
           obj.addSentinel((String)item);
       });
     }
+    if (json.getValue("streamingThreshold") instanceof Number) {
+      obj.setStreamingThreshold(((Number)json.getValue("streamingThreshold")).intValue());
+    }
+    if (json.getValue("writeCoalescing") instanceof Boolean) {
+      obj.setWriteCoalescing((Boolean)json.getValue("writeCoalescing"));
+    }
+    if (json.getValue("writeCoalescingThreshold") instanceof Number) {
+      obj.setWriteCoalescingThreshold(((Number)json.getValue("writeCoalescingThreshold")).intValue());
+    }
+    if (json.getValue("zeroCopyThreshold") instanceof Number) {
+      obj.setZeroCopyThreshold(((Number)json.getValue("zeroCopyThreshold")).intValue());
+    }
   }
 
   public static void toJson(RedisOptions obj, JsonObject json) {
@@ -67,16 +147,49 @@ public class RedisOptionsConverter {
       json.put("auth", obj.getAuth());
     }
     json.put("binary", obj.isBinary());
+    json.put("circuitBreakerThreshold", obj.getCircuitBreakerThreshold());
+    json.put("commandCoalescing", obj.isCommandCoalescing());
+    json.put("commandTimeout", obj.getCommandTimeout());
+    if (obj.getDomainSocketAddress() != null) {
+      json.put("domainSocketAddress", obj.getDomainSocketAddress());
+    }
+    json.put("eagerConnect", obj.isEagerConnect());
     if (obj.getEncoding() != null) {
       json.put("encoding", obj.getEncoding());
     }
+    json.put("eventLoopAffinity", obj.isEventLoopAffinity());
     if (obj.getHost() != null) {
       json.put("host", obj.getHost());
     }
     if (obj.getMasterName() != null) {
       json.put("masterName", obj.getMasterName());
     }
+    json.put("maxBlockingPoolSize", obj.getMaxBlockingPoolSize());
+    json.put("maxInFlightCommands", obj.getMaxInFlightCommands());
+    json.put("maxPoolSize", obj.getMaxPoolSize());
+    json.put("maxReconnectInterval", obj.getMaxReconnectInterval());
+    if (obj.getNearCacheEviction() != null) {
+      json.put("nearCacheEviction", obj.getNearCacheEviction().name());
+    }
+    if (obj.getNearCacheInvalidation() != null) {
+      json.put("nearCacheInvalidation", obj.getNearCacheInvalidation().name());
+    }
+    json.put("nearCacheMaxSize", obj.getNearCacheMaxSize());
+    if (obj.getNearCachePrefixes() != null) {
+      JsonArray array = new JsonArray();
+      obj.getNearCachePrefixes().forEach(item -> array.add(item));
+      json.put("nearCachePrefixes", array);
+    }
+    json.put("nearCacheTtl", obj.getNearCacheTtl());
+    if (obj.getOverflowPolicy() != null) {
+      json.put("overflowPolicy", obj.getOverflowPolicy().name());
+    }
+    if (obj.getPoolSelection() != null) {
+      json.put("poolSelection", obj.getPoolSelection().name());
+    }
     json.put("port", obj.getPort());
+    json.put("readBufferCompactionThreshold", obj.getReadBufferCompactionThreshold());
+    json.put("readDeduplication", obj.isReadDeduplication());
     if (obj.getSelect() != null) {
       json.put("select", obj.getSelect());
     }
@@ -85,5 +198,9 @@ public class RedisOptionsConverter {
       obj.getSentinels().forEach(item -> array.add(item));
       json.put("sentinels", array);
     }
+    json.put("streamingThreshold", obj.getStreamingThreshold());
+    json.put("writeCoalescing", obj.isWriteCoalescing());
+    json.put("writeCoalescingThreshold", obj.getWriteCoalescingThreshold());
+    json.put("zeroCopyThreshold", obj.getZeroCopyThreshold());
   }
 }
\ No newline at end of file
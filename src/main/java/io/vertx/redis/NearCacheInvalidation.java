@@ -0,0 +1,38 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * How the near cache learns that the keys it holds were modified.
+ */
+@VertxGen
+public enum NearCacheInvalidation {
+  /**
+   * Client side caching: CLIENT TRACKING in broadcasting mode, Redis 6.
+   */
+  TRACKING,
+  /**
+   * Keyspace notifications of the prefixes of the near cache, the server must be configured to notify them with
+   * {@code notify-keyspace-events}, e.g.: {@code KA}.
+   * <p>
+   * Flushing a database sends no notification of its keys: the flushes of this client clear the near cache, but
+   * those of other clients are not seen and the cache serves the flushed keys until they expire, see
+   * {@link RedisOptions#setNearCacheTtl(long)}.
+   */
+  KEYSPACE_NOTIFICATIONS
+}
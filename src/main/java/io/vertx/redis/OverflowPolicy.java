@@ -0,0 +1,33 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * What happens to a command sent while the maximum number of commands in flight is reached.
+ */
+@VertxGen
+public enum OverflowPolicy {
+  /**
+   * The command is failed without being sent.
+   */
+  FAIL_FAST,
+  /**
+   * The command is queued anyway, the client reports its queue as full until it drains.
+   */
+  QUEUE
+}
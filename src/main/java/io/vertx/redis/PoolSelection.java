@@ -0,0 +1,33 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * How a command picks one of the pooled connections.
+ */
+@VertxGen
+public enum PoolSelection {
+  /**
+   * Each command goes to the next connection in turn.
+   */
+  ROUND_ROBIN,
+  /**
+   * Each command goes to the connection with the fewest commands queued or waiting for a reply.
+   */
+  LEAST_OUTSTANDING
+}
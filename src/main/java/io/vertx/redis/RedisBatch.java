@@ -0,0 +1,59 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.util.List;
+
+/**
+ * Collects commands that are sent together: they are encoded in a single buffer, written at once on one connection
+ * and a single handler receives all the replies.
+ * <p>
+ * Unlike a transaction the commands are not atomic, other commands may run in between on the server. The replies are
+ * returned in the order of the commands: status and bulk replies as {@link String} (null for nil), integer replies
+ * as {@link Long}, multi-bulk replies as {@link io.vertx.core.json.JsonArray} and error replies as a
+ * {@link Throwable} whose message is the error, they only fail their own entry.
+ * <p>
+ * A batch is not thread safe and can be sent only once.
+ */
+public interface RedisBatch {
+
+  /**
+   * Adds a command to the batch.
+   *
+   * @param command the name of the command, e.g.: {@code HGET} or {@code CLIENT LIST}
+   * @param args    the arguments, strings, numbers, {@link io.vertx.core.buffer.Buffer} or byte arrays
+   * @return self
+   * @throws IllegalArgumentException if the command is unknown or cannot be batched: pub/sub, blocking commands,
+   *                                  MONITOR, QUIT and the commands that change the state of the connection
+   *                                  (transactions, SELECT, AUTH, CLIENT REPLY, CLIENT SETNAME, CLIENT TRACKING)
+   */
+  RedisBatch add(String command, Object... args);
+
+  /**
+   * @return the number of commands in the batch
+   */
+  int size();
+
+  /**
+   * Sends the commands.
+   *
+   * @param handler called with the replies, fails only if the batch could not be sent or the connection was lost
+   */
+  void send(Handler<AsyncResult<List<Object>>> handler);
+}
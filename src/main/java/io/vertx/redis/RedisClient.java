@@ -24,6 +24,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.redis.impl.RedisClientImpl;
 import io.vertx.redis.op.*;
 
@@ -57,6 +58,66 @@ public interface RedisClient {
    */
   void close(Handler<AsyncResult<Void>> handler);
 
+  /**
+   * Creates a batch of commands that are written at once and whose replies are returned together.
+   *
+   * @return a new batch
+   */
+  @GenIgnore
+  RedisBatch batch();
+
+  /**
+   * Opens the connections of the client without waiting for a first command, commands sent in the meantime are
+   * queued as usual.
+   *
+   * @param handler called once the handshake of every connection completed, or failed
+   * @return self
+   */
+  @Fluent
+  RedisClient connect(Handler<AsyncResult<Void>> handler);
+
+  /**
+   * This will return {@code true} if the number of commands in flight reached
+   * {@link RedisOptions#setMaxInFlightCommands(int)}, the producer should then stop sending commands until the drain
+   * handler is called.
+   *
+   * @return true if the queue of commands is full
+   */
+  boolean writeQueueFull();
+
+  /**
+   * Set a drain handler on the client. It is called once the queue of commands was full and the number of commands
+   * in flight dropped to half the limit.
+   *
+   * @param handler the handler
+   * @return self
+   */
+  @Fluent
+  RedisClient drainHandler(Handler<Void> handler);
+
+  /**
+   * Returns a view of this client whose commands wait for their reply for the given time instead of
+   * {@link RedisOptions#setCommandTimeout(long)}. The view shares the connections of this client, closing it closes
+   * them.
+   *
+   * @param timeout the timeout in milliseconds, 0 to wait forever
+   * @return the view
+   */
+  RedisClient withTimeout(long timeout);
+
+  /**
+   * Returns a view of this client whose commands do not wait for their reply, e.g.: counters or cache writes that do
+   * not need to be confirmed. The handlers are called with a null result once the command is written, failures are
+   * not reported. The commands are sent with {@code CLIENT REPLY OFF} so the server does not answer them, this needs
+   * Redis 3.2, older servers still answer and the replies are ignored.
+   * <p>
+   * Pub/sub, blocking and transaction commands wait for their reply. The view shares the connections of this client,
+   * closing it closes them.
+   *
+   * @return the view
+   */
+  RedisClient fireAndForget();
+
   /**
    * Append a value to a key
    *
@@ -695,6 +756,19 @@ public interface RedisClient {
   @Fluent
   RedisClient dump(String key, Handler<AsyncResult<String>> handler);
 
+  /**
+   * Return a serialized version of the value stored at the specified key as a stream of raw bytes. Serialized values
+   * larger than {@link RedisOptions#getStreamingThreshold()} are not buffered, the stream is paused and resumed with
+   * the connection, so the stream needs a handler (or to be paused) before any other reply can be received.
+   *
+   * @param key     Key string
+   * @param handler Handler for the result of this call, the stream is null if the key does not exist.
+   * @since Redis 2.6.0
+   * group: generic
+   */
+  @Fluent
+  RedisClient dumpStream(String key, Handler<AsyncResult<ReadStream<Buffer>>> handler);
+
   /**
    * Echo the given string
    *
@@ -834,6 +908,19 @@ public interface RedisClient {
   @Fluent
   RedisClient getBinary(String key, Handler<AsyncResult<Buffer>> handler);
 
+  /**
+   * Get the value of a key as a stream of buffers. Values larger than {@link RedisOptions#getStreamingThreshold()}
+   * are not buffered, the stream is paused and resumed with the connection, so the stream needs a handler (or to be
+   * paused) before any other reply can be received.
+   *
+   * @param key     Key string
+   * @param handler Handler for the result of this call, the stream is null if the key does not exist.
+   * @since Redis 1.0.0
+   * group: string
+   */
+  @Fluent
+  RedisClient getStream(String key, Handler<AsyncResult<ReadStream<Buffer>>> handler);
+
   /**
    * Returns the bit value at offset in the string value stored at key
    *
@@ -919,6 +1006,20 @@ public interface RedisClient {
   @Fluent
   RedisClient hget(String key, String field, Handler<AsyncResult<String>> handler);
 
+  /**
+   * Get the value of a hash field as a stream of buffers. Values larger than
+   * {@link RedisOptions#getStreamingThreshold()} are not buffered, the stream is paused and resumed with the
+   * connection, so the stream needs a handler (or to be paused) before any other reply can be received.
+   *
+   * @param key     Key string
+   * @param field   Field name
+   * @param handler Handler for the result of this call, the stream is null if the field does not exist.
+   * @since Redis 2.0.0
+   * group: hash
+   */
+  @Fluent
+  RedisClient hgetStream(String key, String field, Handler<AsyncResult<ReadStream<Buffer>>> handler);
+
   /**
    * Get all the fields and values in a hash
    *
@@ -930,6 +1031,19 @@ public interface RedisClient {
   @Fluent
   RedisClient hgetall(String key, Handler<AsyncResult<JsonObject>> handler);
 
+  /**
+   * Get all the fields and values in a hash, decoded by the given decoder while the reply is parsed
+   *
+   * @param key     Key string
+   * @param decoder Decoder of the reply, such as {@link ReplyDecoder#stringMap()}. A new decoder is needed for every call.
+   * @param handler Handler for the result of this call.
+   * @since Redis 2.0.0
+   * group: hash
+   */
+  @GenIgnore
+  @Fluent
+  <T> RedisClient hgetallAs(String key, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler);
+
   /**
    * Increment the integer value of a hash field by the given number
    *
@@ -1212,6 +1326,21 @@ public interface RedisClient {
   @Fluent
   RedisClient lrange(String key, long from, long to, Handler<AsyncResult<JsonArray>> handler);
 
+  /**
+   * Get a range of elements from a list, decoded by the given decoder while the reply is parsed
+   *
+   * @param key     Key string
+   * @param from    Start index
+   * @param to      Stop index
+   * @param decoder Decoder of the reply, such as {@link ReplyDecoder#bufferList()}. A new decoder is needed for every call.
+   * @param handler Handler for the result of this call.
+   * @since Redis 1.0.0
+   * group: list
+   */
+  @GenIgnore
+  @Fluent
+  <T> RedisClient lrangeAs(String key, long from, long to, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler);
+
   /**
    * Remove elements from a list
    *
@@ -1273,6 +1402,19 @@ public interface RedisClient {
   @Fluent
   RedisClient mgetMany(List<String> keys, Handler<AsyncResult<JsonArray>> handler);
 
+  /**
+   * Get the values of all the given keys, decoded by the given decoder while the reply is parsed
+   *
+   * @param keys    List of keys to get
+   * @param decoder Decoder of the reply, such as {@link ReplyDecoder#bufferList()}. A new decoder is needed for every call.
+   * @param handler Handler for the result of this call.
+   * @since Redis 1.0.0
+   * group: string
+   */
+  @GenIgnore
+  @Fluent
+  <T> RedisClient mgetManyAs(List<String> keys, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler);
+
   /**
    * Atomically transfer a key from a Redis instance to another one.
    *
@@ -1781,7 +1923,7 @@ public interface RedisClient {
   RedisClient sdiffstore(String destkey, String key, List<String> cmpkeys, Handler<AsyncResult<Long>> handler);
 
   /**
-   * Change the selected database for the current connection
+   * Change the selected database of all the connections of the client, including the ones opened later
    *
    * @param dbindex Index identifying the new active database
    * @param handler Handler for the result of this call.
@@ -2339,6 +2481,22 @@ public interface RedisClient {
   @Fluent
   RedisClient zrangeWithOptions(String key, long start, long stop, RangeOptions options, Handler<AsyncResult<JsonArray>> handler);
 
+  /**
+   * Return a range of members in a sorted set, by index, decoded by the given decoder while the reply is parsed
+   *
+   * @param key     Key string
+   * @param start   Start index for the range
+   * @param stop    Stop index for the range - inclusive
+   * @param options Range options, {@link RangeOptions#WITHSCORES} pairs with {@link ReplyDecoder#scoreMap()}
+   * @param decoder Decoder of the reply. A new decoder is needed for every call.
+   * @param handler Handler for the result of this call.
+   * @since Redis 1.2.0
+   * group: sorted_set
+   */
+  @GenIgnore
+  @Fluent
+  <T> RedisClient zrangeWithOptionsAs(String key, long start, long stop, RangeOptions options, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler);
+
   /**
    * Return a range of members in a sorted set, by lexicographical range
    *
@@ -2584,6 +2742,52 @@ public interface RedisClient {
   @Fluent
   RedisClient zscan(String key, String cursor, ScanOptions options, Handler<AsyncResult<JsonArray>> handler);
 
+  /**
+   * Iterate the keys space as a stream of keys. The pages are requested as the keys are consumed, a key may be
+   * delivered more than once if the keys space changes during the iteration.
+   *
+   * @param options Scan options, {@link ScanOptions#setPrefetch(boolean)} requests the next page ahead
+   * @return the stream of keys, the iteration starts once it has a handler
+   * @since Redis 2.8.0
+   * group: generic
+   */
+  ReadStream<String> scanStream(ScanOptions options);
+
+  /**
+   * Iterate Set elements as a stream. The pages are requested as the elements are consumed.
+   *
+   * @param key     Key string
+   * @param options Scan options, {@link ScanOptions#setPrefetch(boolean)} requests the next page ahead
+   * @return the stream of elements, the iteration starts once it has a handler
+   * @since Redis 2.8.0
+   * group: set
+   */
+  ReadStream<String> sscanStream(String key, ScanOptions options);
+
+  /**
+   * Iterate hash fields and associated values as a stream of {@code [field, value]} arrays. The pages are requested
+   * as the entries are consumed.
+   *
+   * @param key     Key string
+   * @param options Scan options, {@link ScanOptions#setPrefetch(boolean)} requests the next page ahead
+   * @return the stream of entries, the iteration starts once it has a handler
+   * @since Redis 2.8.0
+   * group: hash
+   */
+  ReadStream<JsonArray> hscanStream(String key, ScanOptions options);
+
+  /**
+   * Iterate sorted sets elements and associated scores as a stream of {@code [member, score]} arrays. The pages are
+   * requested as the entries are consumed.
+   *
+   * @param key     Key string
+   * @param options Scan options, {@link ScanOptions#setPrefetch(boolean)} requests the next page ahead
+   * @return the stream of entries, the iteration starts once it has a handler
+   * @since Redis 2.8.0
+   * group: sorted_set
+   */
+  ReadStream<JsonArray> zscanStream(String key, ScanOptions options);
+
   /**
    * Add one or more geospatial items in the geospatial index represented using a sorted set.
    *
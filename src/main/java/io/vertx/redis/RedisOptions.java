@@ -52,12 +52,55 @@ public class RedisOptions extends NetClientOptions {
   private static final int DEFAULT_PORT = 6379;
   private static final boolean DEFAULT_BINARY = false;
   private static final String DEFAULT_ADDRESS = "io.vertx.redis";
+  private static final int DEFAULT_READ_BUFFER_COMPACTION_THRESHOLD = 64 * 1024;
+  private static final int DEFAULT_STREAMING_THRESHOLD = 64 * 1024;
+  private static final int DEFAULT_ZERO_COPY_THRESHOLD = -1;
+  private static final int DEFAULT_WRITE_COALESCING_THRESHOLD = 64 * 1024;
+  private static final int DEFAULT_MAX_POOL_SIZE = 1;
+  private static final PoolSelection DEFAULT_POOL_SELECTION = PoolSelection.ROUND_ROBIN;
+  private static final boolean DEFAULT_EVENT_LOOP_AFFINITY = false;
+  private static final int DEFAULT_MAX_BLOCKING_POOL_SIZE = 4;
+  private static final int DEFAULT_MAX_IN_FLIGHT_COMMANDS = -1;
+  private static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.QUEUE;
+  private static final long DEFAULT_COMMAND_TIMEOUT = 0;
+  private static final long DEFAULT_MAX_RECONNECT_INTERVAL = 0;
+  private static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 0;
+  private static final boolean DEFAULT_EAGER_CONNECT = false;
+  private static final boolean DEFAULT_COMMAND_COALESCING = false;
+  private static final boolean DEFAULT_READ_DEDUPLICATION = false;
+  private static final long DEFAULT_NEAR_CACHE_MAX_SIZE = 0;
+  private static final long DEFAULT_NEAR_CACHE_TTL = 0;
+  private static final NearCacheEviction DEFAULT_NEAR_CACHE_EVICTION = NearCacheEviction.LRU;
+  private static final NearCacheInvalidation DEFAULT_NEAR_CACHE_INVALIDATION = NearCacheInvalidation.TRACKING;
 
   private String encoding;
   private String host;
   private int port;
   private boolean binary;
   private String address;
+  private int readBufferCompactionThreshold;
+  private int streamingThreshold;
+  private int zeroCopyThreshold;
+  private boolean writeCoalescing;
+  private int writeCoalescingThreshold;
+  private int maxPoolSize;
+  private PoolSelection poolSelection;
+  private boolean eventLoopAffinity;
+  private int maxBlockingPoolSize;
+  private int maxInFlightCommands;
+  private OverflowPolicy overflowPolicy;
+  private long commandTimeout;
+  private long maxReconnectInterval;
+  private int circuitBreakerThreshold;
+  private boolean eagerConnect;
+  private String domainSocketAddress;
+  private boolean commandCoalescing;
+  private boolean readDeduplication;
+  private long nearCacheMaxSize;
+  private long nearCacheTtl;
+  private NearCacheEviction nearCacheEviction;
+  private List<String> nearCachePrefixes;
+  private NearCacheInvalidation nearCacheInvalidation;
 
   private String auth;
   private Integer select;
@@ -79,9 +122,34 @@ public class RedisOptions extends NetClientOptions {
     this.port = other.port;
     this.binary = other.binary;
     this.address = other.address;
+    this.readBufferCompactionThreshold = other.readBufferCompactionThreshold;
+    this.streamingThreshold = other.streamingThreshold;
+    this.zeroCopyThreshold = other.zeroCopyThreshold;
+    this.writeCoalescing = other.writeCoalescing;
+    this.writeCoalescingThreshold = other.writeCoalescingThreshold;
+    this.maxPoolSize = other.maxPoolSize;
+    this.poolSelection = other.poolSelection;
+    this.eventLoopAffinity = other.eventLoopAffinity;
+    this.maxBlockingPoolSize = other.maxBlockingPoolSize;
+    this.maxInFlightCommands = other.maxInFlightCommands;
+    this.overflowPolicy = other.overflowPolicy;
+    this.commandTimeout = other.commandTimeout;
+    this.maxReconnectInterval = other.maxReconnectInterval;
+    this.circuitBreakerThreshold = other.circuitBreakerThreshold;
+    this.eagerConnect = other.eagerConnect;
+    this.domainSocketAddress = other.domainSocketAddress;
+    this.commandCoalescing = other.commandCoalescing;
+    this.readDeduplication = other.readDeduplication;
+    this.nearCacheMaxSize = other.nearCacheMaxSize;
+    this.nearCacheTtl = other.nearCacheTtl;
+    this.nearCacheEviction = other.nearCacheEviction;
+    this.nearCachePrefixes = other.nearCachePrefixes == null ? null : new ArrayList<>(other.nearCachePrefixes);
+    this.nearCacheInvalidation = other.nearCacheInvalidation;
     // custom
     this.auth = other.auth;
     this.select = other.select;
+    this.masterName = other.masterName;
+    this.sentinels = other.sentinels == null ? null : new ArrayList<>(other.sentinels);
     postInit();
   }
 
@@ -99,6 +167,27 @@ public class RedisOptions extends NetClientOptions {
     port = DEFAULT_PORT;
     binary = DEFAULT_BINARY;
     address = DEFAULT_ADDRESS;
+    readBufferCompactionThreshold = DEFAULT_READ_BUFFER_COMPACTION_THRESHOLD;
+    streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+    zeroCopyThreshold = DEFAULT_ZERO_COPY_THRESHOLD;
+    writeCoalescing = false;
+    writeCoalescingThreshold = DEFAULT_WRITE_COALESCING_THRESHOLD;
+    maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+    poolSelection = DEFAULT_POOL_SELECTION;
+    eventLoopAffinity = DEFAULT_EVENT_LOOP_AFFINITY;
+    maxBlockingPoolSize = DEFAULT_MAX_BLOCKING_POOL_SIZE;
+    maxInFlightCommands = DEFAULT_MAX_IN_FLIGHT_COMMANDS;
+    overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+    commandTimeout = DEFAULT_COMMAND_TIMEOUT;
+    maxReconnectInterval = DEFAULT_MAX_RECONNECT_INTERVAL;
+    circuitBreakerThreshold = DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+    eagerConnect = DEFAULT_EAGER_CONNECT;
+    commandCoalescing = DEFAULT_COMMAND_COALESCING;
+    readDeduplication = DEFAULT_READ_DEDUPLICATION;
+    nearCacheMaxSize = DEFAULT_NEAR_CACHE_MAX_SIZE;
+    nearCacheTtl = DEFAULT_NEAR_CACHE_TTL;
+    nearCacheEviction = DEFAULT_NEAR_CACHE_EVICTION;
+    nearCacheInvalidation = DEFAULT_NEAR_CACHE_INVALIDATION;
     // tcp defaults
     setTcpKeepAlive(true);
     setTcpNoDelay(true);
@@ -177,6 +266,543 @@ public class RedisOptions extends NetClientOptions {
     return this;
   }
 
+  /**
+   * Get the number of consumed bytes after which the reply parser drops the inbound buffers it already read,
+   * default 64KB.
+   *
+   * @return threshold in bytes
+   */
+  public int getReadBufferCompactionThreshold() {
+    return readBufferCompactionThreshold;
+  }
+
+  /**
+   * Set the number of consumed bytes after which the reply parser drops the inbound buffers it already read. Inbound
+   * buffers are never copied, a fully consumed read buffer is always released, this threshold only applies while a
+   * reply is still incomplete.
+   *
+   * @param readBufferCompactionThreshold threshold in bytes
+   * @return self
+   */
+  public RedisOptions setReadBufferCompactionThreshold(int readBufferCompactionThreshold) {
+    this.readBufferCompactionThreshold = readBufferCompactionThreshold;
+    return this;
+  }
+
+  /**
+   * Get the declared length from which the bulk replies of streaming commands are streamed, default 64KB.
+   *
+   * @return threshold in bytes
+   */
+  public int getStreamingThreshold() {
+    return streamingThreshold;
+  }
+
+  /**
+   * Set the declared length from which the bulk replies of streaming commands (e.g.:
+   * {@link io.vertx.redis.RedisClient#getStream(String, Handler)}) are streamed chunk by chunk instead of being
+   * buffered. Smaller replies are buffered and delivered as a single chunk.
+   *
+   * @param streamingThreshold threshold in bytes
+   * @return self
+   */
+  public RedisOptions setStreamingThreshold(int streamingThreshold) {
+    this.streamingThreshold = streamingThreshold;
+    return this;
+  }
+
+  /**
+   * Get the size from which Buffer and byte[] arguments are written by reference instead of being copied into
+   * the request, default -1: they are always copied.
+   *
+   * @return threshold in bytes
+   */
+  public int getZeroCopyThreshold() {
+    return zeroCopyThreshold;
+  }
+
+  /**
+   * Set the size from which Buffer and byte[] arguments are written by reference instead of being copied into
+   * the request. Such arguments are read when the command is written, after the call returned: they must not be
+   * modified until the handler of the command is called.
+   *
+   * @param zeroCopyThreshold threshold in bytes, -1 to always copy them
+   * @return self
+   */
+  public RedisOptions setZeroCopyThreshold(int zeroCopyThreshold) {
+    this.zeroCopyThreshold = zeroCopyThreshold;
+    return this;
+  }
+
+  /**
+   * Get whether the commands issued in the same event loop tick are written to the socket in a single write,
+   * default false.
+   *
+   * @return true if write coalescing is enabled
+   */
+  public boolean isWriteCoalescing() {
+    return writeCoalescing;
+  }
+
+  /**
+   * Set whether the commands issued in the same event loop tick are gathered and written to the socket in a single
+   * write and flush once the tick ends, instead of one write per command. This reduces the number of writes and
+   * flushes (and system calls) when many commands are pipelined at once.
+   *
+   * @param writeCoalescing true if write coalescing is enabled
+   * @return self
+   */
+  public RedisOptions setWriteCoalescing(boolean writeCoalescing) {
+    this.writeCoalescing = writeCoalescing;
+    return this;
+  }
+
+  /**
+   * Get the number of gathered bytes after which coalesced commands are written without waiting for the end of
+   * the tick, default 64KB.
+   *
+   * @return threshold in bytes
+   */
+  public int getWriteCoalescingThreshold() {
+    return writeCoalescingThreshold;
+  }
+
+  /**
+   * Set the number of gathered bytes after which coalesced commands are written without waiting for the end of
+   * the tick. Only used when write coalescing is enabled.
+   *
+   * @param writeCoalescingThreshold threshold in bytes
+   * @return self
+   */
+  public RedisOptions setWriteCoalescingThreshold(int writeCoalescingThreshold) {
+    this.writeCoalescingThreshold = writeCoalescingThreshold;
+    return this;
+  }
+
+  /**
+   * Get the number of pipelined connections the commands are spread over, default 1.
+   *
+   * @return the number of connections
+   */
+  public int getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  /**
+   * Set the number of pipelined connections the commands are spread over. Pub/sub always uses its own connection.
+   * Commands that change the state of a connection (transactions, CLIENT SETNAME, CLIENT REPLY, MONITOR) are always
+   * sent to the same connection. SELECT is sent to every connection and applies to the connections opened later,
+   * it can only be part of a transaction while the client has a single connection.
+   *
+   * @param maxPoolSize the number of connections
+   * @return self
+   */
+  public RedisOptions setMaxPoolSize(int maxPoolSize) {
+    this.maxPoolSize = maxPoolSize;
+    return this;
+  }
+
+  /**
+   * Get how commands pick one of the pooled connections, default {@link PoolSelection#ROUND_ROBIN}.
+   *
+   * @return the selection
+   */
+  public PoolSelection getPoolSelection() {
+    return poolSelection;
+  }
+
+  /**
+   * Set how commands pick one of the pooled connections. Only used when the pool has more than one connection.
+   *
+   * @param poolSelection the selection
+   * @return self
+   */
+  public RedisOptions setPoolSelection(PoolSelection poolSelection) {
+    this.poolSelection = poolSelection;
+    return this;
+  }
+
+  /**
+   * Get whether the commands sent from an event loop use a connection bound to that event loop, default false.
+   *
+   * @return true when commands use a connection of their event loop
+   */
+  public boolean isEventLoopAffinity() {
+    return eventLoopAffinity;
+  }
+
+  /**
+   * Set whether the commands sent from an event loop use a connection bound to that event loop. Such a
+   * connection is opened on the first command sent from the event loop, commands are then written and their replies
+   * handled on the thread of the caller, without a task queued on the event loop in either direction. It is shared
+   * by all the contexts of the event loop and closed with the last of them. At most {@link #getMaxPoolSize()} event
+   * loops get their own connection, commands sent from the other ones, from elsewhere and commands that depend on the
+   * state of the connection still use the pool.
+   *
+   * @param eventLoopAffinity true when commands use a connection of their event loop
+   * @return self
+   */
+  public RedisOptions setEventLoopAffinity(boolean eventLoopAffinity) {
+    this.eventLoopAffinity = eventLoopAffinity;
+    return this;
+  }
+
+  /**
+   * Get the maximum number of connections used for blocking commands, default 4.
+   *
+   * @return the number of connections
+   */
+  public int getMaxBlockingPoolSize() {
+    return maxBlockingPoolSize;
+  }
+
+  /**
+   * Set the maximum number of connections used for blocking commands (BLPOP, BRPOP, BRPOPLPUSH and WAIT). They
+   * are kept apart from the other connections so that a blocked command does not delay the commands pipelined
+   * behind it. The connections are opened the first time all the existing ones are blocked, once the maximum is
+   * reached the blocking commands are queued behind the others.
+   *
+   * @param maxBlockingPoolSize the number of connections
+   * @return self
+   */
+  public RedisOptions setMaxBlockingPoolSize(int maxBlockingPoolSize) {
+    this.maxBlockingPoolSize = maxBlockingPoolSize;
+    return this;
+  }
+
+  /**
+   * Get the maximum number of commands queued or waiting for a reply, default -1 (unbounded).
+   *
+   * @return the maximum number of commands
+   */
+  public int getMaxInFlightCommands() {
+    return maxInFlightCommands;
+  }
+
+  /**
+   * Set the maximum number of commands queued or waiting for a reply, for all the connections of the client but
+   * the pub/sub one. Use -1 for no limit. What happens to the commands sent past the limit depends on the
+   * {@link #setOverflowPolicy(OverflowPolicy) overflow policy}, in any case {@link RedisClient#writeQueueFull()}
+   * returns true until the number of commands drops to half the limit.
+   *
+   * @param maxInFlightCommands the maximum number of commands
+   * @return self
+   */
+  public RedisOptions setMaxInFlightCommands(int maxInFlightCommands) {
+    this.maxInFlightCommands = maxInFlightCommands;
+    return this;
+  }
+
+  /**
+   * Get what happens to the commands sent past the maximum number of commands in flight, default
+   * {@link OverflowPolicy#QUEUE}.
+   *
+   * @return the policy
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Set what happens to the commands sent past the maximum number of commands in flight.
+   *
+   * @param overflowPolicy the policy
+   * @return self
+   */
+  public RedisOptions setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+    return this;
+  }
+
+  /**
+   * Get how long a command waits for its reply once it was sent, in milliseconds, default 0 (no timeout).
+   *
+   * @return the timeout in milliseconds
+   */
+  public long getCommandTimeout() {
+    return commandTimeout;
+  }
+
+  /**
+   * Set how long a command waits for its reply once it was sent, in milliseconds, 0 to wait forever. The
+   * replies are matched to the commands by their order, so when a reply is overdue the connection is closed and
+   * opened again, failing all the commands that were waiting on it. Blocking commands (BLPOP, BRPOP, BRPOPLPUSH
+   * and WAIT) have their own timeout and are not affected.
+   *
+   * Use {@link RedisClient#withTimeout(long)} for a different timeout on some calls.
+   *
+   * @param commandTimeout the timeout in milliseconds
+   * @return self
+   */
+  public RedisOptions setCommandTimeout(long commandTimeout) {
+    this.commandTimeout = commandTimeout;
+    return this;
+  }
+
+  /**
+   * Get the maximum interval between two attempts to reconnect, in milliseconds, default 0 (no backoff).
+   *
+   * @return the maximum interval in milliseconds
+   */
+  public long getMaxReconnectInterval() {
+    return maxReconnectInterval;
+  }
+
+  /**
+   * Set the maximum interval between two attempts to reconnect, in milliseconds. When it is greater than the
+   * {@link #setReconnectInterval(long) reconnect interval} the interval doubles after every failed attempt up to
+   * this maximum, and a random jitter of up to half the interval is applied so that clients do not reconnect in
+   * lockstep. Otherwise the client attempts to reconnect at a fixed interval.
+   *
+   * @param maxReconnectInterval the maximum interval in milliseconds
+   * @return self
+   */
+  public RedisOptions setMaxReconnectInterval(long maxReconnectInterval) {
+    this.maxReconnectInterval = maxReconnectInterval;
+    return this;
+  }
+
+  /**
+   * Get the number of failed attempts to connect after which commands fail immediately, default 0 (never).
+   *
+   * @return the number of failed attempts
+   */
+  public int getCircuitBreakerThreshold() {
+    return circuitBreakerThreshold;
+  }
+
+  /**
+   * Set the number of failed attempts to connect after which commands fail immediately instead of being queued
+   * until the connection is back. The client keeps attempting to reconnect in the background, commands are
+   * accepted again once a PING on the new connection succeeds. Use 0 to always queue the commands.
+   *
+   * @param circuitBreakerThreshold the number of failed attempts
+   * @return self
+   */
+  public RedisOptions setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+    this.circuitBreakerThreshold = circuitBreakerThreshold;
+    return this;
+  }
+
+  /**
+   * Get whether the pooled connections are opened when the client is created, default false.
+   *
+   * @return true when the connections are opened on creation
+   */
+  public boolean isEagerConnect() {
+    return eagerConnect;
+  }
+
+  /**
+   * Set whether the pooled connections are opened when the client is created instead of on the first command, so
+   * that the first commands do not wait for the handshake. Use {@link RedisClient#connect(io.vertx.core.Handler)}
+   * to know when they are ready.
+   *
+   * @param eagerConnect true when the connections are opened on creation
+   * @return self
+   */
+  public RedisOptions setEagerConnect(boolean eagerConnect) {
+    this.eagerConnect = eagerConnect;
+    return this;
+  }
+
+  /**
+   * Get the path of the Unix domain socket the Redis server is listening on, default null (TCP).
+   *
+   * @return the path of the socket
+   */
+  public String getDomainSocketAddress() {
+    return domainSocketAddress;
+  }
+
+  /**
+   * Set the path of the Unix domain socket the Redis server is listening on, e.g.:
+   * {@code /var/run/redis/redis.sock}. When it is set the host and the port are ignored. Domain sockets need the
+   * native transport: {@link io.vertx.core.VertxOptions#setPreferNativeTransport(boolean)} and the Netty native
+   * transport for the platform on the classpath.
+   *
+   * @param domainSocketAddress the path of the socket
+   * @return self
+   */
+  public RedisOptions setDomainSocketAddress(String domainSocketAddress) {
+    this.domainSocketAddress = domainSocketAddress;
+    return this;
+  }
+
+  /**
+   * Get whether the GET and SET commands issued in the same event loop tick are merged into MGET and MSET,
+   * default false.
+   *
+   * @return true if command coalescing is enabled
+   */
+  public boolean isCommandCoalescing() {
+    return commandCoalescing;
+  }
+
+  /**
+   * Set whether the consecutive GET (and SET) commands issued in the same event loop tick are merged into a single
+   * MGET (MSET) sent once the tick ends, the replies are dispatched to each caller. Any other command sent from the
+   * same context sends the merged commands first so the order of the commands is kept.
+   * <p>
+   * A merged GET of a key that does not hold a string completes with null instead of failing, as MGET does.
+   *
+   * @param commandCoalescing true if command coalescing is enabled
+   * @return self
+   */
+  public RedisOptions setCommandCoalescing(boolean commandCoalescing) {
+    this.commandCoalescing = commandCoalescing;
+    return this;
+  }
+
+  /**
+   * Get whether a read command identical to one in flight waits for the reply of the first one instead of being
+   * sent, default false.
+   *
+   * @return true if read deduplication is enabled
+   */
+  public boolean isReadDeduplication() {
+    return readDeduplication;
+  }
+
+  /**
+   * Set whether a read command (e.g.: GET, HGETALL) identical to one that was sent and not answered yet waits for the
+   * reply of the first one instead of being sent. This caps the number of identical reads sent at once when many callers
+   * ask for the same hot key.
+   * <p>
+   * A write of this client to a key ends the sharing of the reads of that key in flight, so the client still reads
+   * its own writes. A shared reply may predate a write of another client, as the reply of a read sent at the same time
+   * would. Commands of a transaction are always sent.
+   *
+   * @param readDeduplication true if read deduplication is enabled
+   * @return self
+   */
+  public RedisOptions setReadDeduplication(boolean readDeduplication) {
+    this.readDeduplication = readDeduplication;
+    return this;
+  }
+
+  /**
+   * Get the maximum size of the near cache, default 0 which disables it.
+   *
+   * @return the size in bytes
+   */
+  public long getNearCacheMaxSize() {
+    return nearCacheMaxSize;
+  }
+
+  /**
+   * Set the maximum size of the near cache, the estimated size of the keys and values it holds. The near cache keeps
+   * the replies of GET and HGET locally, the next reads of the same key are served without a round trip until the key
+   * is modified. The server notifies the changes as set with {@link #setNearCacheInvalidation(NearCacheInvalidation)},
+   * the reads are always sent to a server that does not support it.
+   * <p>
+   * The writes sent by this client evict the keys they name at once.
+   *
+   * @param nearCacheMaxSize the size in bytes
+   * @return self
+   */
+  public RedisOptions setNearCacheMaxSize(long nearCacheMaxSize) {
+    this.nearCacheMaxSize = nearCacheMaxSize;
+    return this;
+  }
+
+  /**
+   * Get the time an entry is kept in the near cache, default 0 to keep it until it is modified or evicted.
+   *
+   * @return the time in milliseconds
+   */
+  public long getNearCacheTtl() {
+    return nearCacheTtl;
+  }
+
+  /**
+   * Set the time an entry is kept in the near cache, it bounds the staleness of an entry if a notification is lost.
+   *
+   * @param nearCacheTtl the time in milliseconds
+   * @return self
+   */
+  public RedisOptions setNearCacheTtl(long nearCacheTtl) {
+    this.nearCacheTtl = nearCacheTtl;
+    return this;
+  }
+
+  /**
+   * Get which entry is evicted once the near cache is full, default LRU.
+   *
+   * @return the eviction policy
+   */
+  public NearCacheEviction getNearCacheEviction() {
+    return nearCacheEviction;
+  }
+
+  /**
+   * Set which entry is evicted once the near cache is full.
+   *
+   * @param nearCacheEviction the eviction policy
+   * @return self
+   */
+  public RedisOptions setNearCacheEviction(NearCacheEviction nearCacheEviction) {
+    this.nearCacheEviction = nearCacheEviction;
+    return this;
+  }
+
+  /**
+   * Get the prefixes of the keys kept in the near cache.
+   *
+   * @return the prefixes, null for all the keys
+   */
+  public List<String> getNearCachePrefixes() {
+    return nearCachePrefixes;
+  }
+
+  /**
+   * Set the prefixes of the keys kept in the near cache, the server only notifies the changes of these keys.
+   *
+   * @param nearCachePrefixes the prefixes, null for all the keys
+   * @return self
+   */
+  public RedisOptions setNearCachePrefixes(List<String> nearCachePrefixes) {
+    this.nearCachePrefixes = nearCachePrefixes;
+    return this;
+  }
+
+  /**
+   * Add a prefix of the keys kept in the near cache.
+   *
+   * @param nearCachePrefix the prefix
+   * @return self
+   */
+  public RedisOptions addNearCachePrefix(String nearCachePrefix) {
+    if (nearCachePrefixes == null) {
+      nearCachePrefixes = new ArrayList<>();
+    }
+
+    nearCachePrefixes.add(nearCachePrefix);
+    return this;
+  }
+
+  /**
+   * Get how the near cache learns that the keys it holds were modified, default TRACKING.
+   *
+   * @return how the changes are notified
+   */
+  public NearCacheInvalidation getNearCacheInvalidation() {
+    return nearCacheInvalidation;
+  }
+
+  /**
+   * Set how the near cache learns that the keys it holds were modified. Keyspace notifications work with the servers
+   * that have no client side caching, they need {@code notify-keyspace-events} to be set on the server and they do
+   * not report the databases flushed by other clients, a TTL bounds how long their keys are served.
+   *
+   * @param nearCacheInvalidation how the changes are notified
+   * @return self
+   */
+  public RedisOptions setNearCacheInvalidation(NearCacheInvalidation nearCacheInvalidation) {
+    this.nearCacheInvalidation = nearCacheInvalidation;
+    return this;
+  }
+
   /**
    * Get the host name for the Redis server, default `localhost`.
    * * @return host name.
@@ -243,7 +869,8 @@ public class RedisOptions extends NetClientOptions {
   }
 
   /**
-   * Set the database to select at connection time.
+   * Set the database to select at connection time. A client keeps a copy of its options, {@code SELECT} then changes
+   * the database of all its connections, including the ones opened or reconnected later.
    * * @param select database id
    *
    * @return self
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.redis.impl.ReplyDecoders;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a reply while it is being parsed, without building the intermediate reply tree or boxing the elements into a
+ * {@link JsonArray}.
+ * <p>
+ * The elements of the reply are pushed to the decoder in the order they are received. A multi-bulk reply is
+ * surrounded by calls to {@link #beginArray(int)} and {@link #endArray()}, nested multi-bulk replies produce nested
+ * calls. Once the whole reply was pushed the value returned by {@link #result()} completes the command. Error replies
+ * fail the command without reaching the decoder.
+ * <p>
+ * Decoders are stateful: a new instance is needed for every command. They are called on the event loop of the
+ * connection, so they should not block. An exception thrown by a decoder fails the command.
+ *
+ * @param <T> the type of the decoded value
+ */
+public interface ReplyDecoder<T> {
+
+  /**
+   * @return a decoder for a multi-bulk reply of bulk elements, nil elements are null
+   */
+  static ReplyDecoder<List<Buffer>> bufferList() {
+    return new ReplyDecoders.BufferList();
+  }
+
+  /**
+   * @return a decoder for a multi-bulk reply of field/value pairs such as HGETALL, the elements are decoded as UTF-8
+   */
+  static ReplyDecoder<Map<String, String>> stringMap() {
+    return new ReplyDecoders.StringMap();
+  }
+
+  /**
+   * @return a decoder for a multi-bulk reply of integers or numeric bulk elements
+   */
+  static ReplyDecoder<long[]> longArray() {
+    return new ReplyDecoders.LongArray();
+  }
+
+  /**
+   * @return a decoder for a multi-bulk reply of numeric bulk elements such as scores
+   */
+  static ReplyDecoder<double[]> doubleArray() {
+    return new ReplyDecoders.DoubleArray();
+  }
+
+  /**
+   * @return a decoder for a multi-bulk reply of member/score pairs such as ZRANGE WITHSCORES, members are decoded as
+   * UTF-8 and kept in the order of the reply
+   */
+  static ReplyDecoder<Map<String, Double>> scoreMap() {
+    return new ReplyDecoders.ScoreMap();
+  }
+
+  /**
+   * Called for a multi-bulk reply, its elements follow.
+   *
+   * @param size the number of elements
+   */
+  default void beginArray(int size) {
+    throw new IllegalStateException("Unexpected multi-bulk reply");
+  }
+
+  /**
+   * Called once all the elements of the last multi-bulk reply that was begun were pushed.
+   */
+  default void endArray() {
+    throw new IllegalStateException("Unexpected multi-bulk reply");
+  }
+
+  /**
+   * Called for a bulk reply.
+   *
+   * @param value a read-only view of the payload or null for nil bulk and multi-bulk replies
+   */
+  default void bulk(Buffer value) {
+    throw new IllegalStateException("Unexpected bulk reply");
+  }
+
+  /**
+   * Called for an integer reply.
+   *
+   * @param value the value
+   */
+  default void integer(long value) {
+    throw new IllegalStateException("Unexpected integer reply");
+  }
+
+  /**
+   * Called for a status reply.
+   *
+   * @param value the status
+   */
+  default void status(String value) {
+    throw new IllegalStateException("Unexpected status reply");
+  }
+
+  /**
+   * Called for an error nested in a multi-bulk reply.
+   *
+   * @param message the error message
+   */
+  default void error(String message) {
+    throw new IllegalStateException(message);
+  }
+
+  /**
+   * @return the decoded value, once the whole reply was pushed
+   */
+  T result();
+}
@@ -2,4 +2,9 @@ package io.vertx.redis.impl;
 
 public interface AbstractCommand {
   String[] getTokens();
+
+  /**
+   * @return the tokens already serialized as bulk strings, they are computed once per command
+   */
+  byte[] getBytes();
 }
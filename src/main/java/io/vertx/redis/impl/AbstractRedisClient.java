@@ -16,11 +16,17 @@
 package io.vertx.redis.impl;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.redis.RedisClient;
 import io.vertx.redis.RedisOptions;
+import io.vertx.redis.ReplyDecoder;
+import io.vertx.redis.op.ClientReplyOptions;
 
 import java.util.List;
 
@@ -30,6 +36,10 @@ public abstract class AbstractRedisClient extends BaseRedisClient<RedisCommand>
     super(vertx, config);
   }
 
+  AbstractRedisClient(AbstractRedisClient other, long commandTimeout, boolean fireAndForget) {
+    super(other, commandTimeout, fireAndForget);
+  }
+
   private ResponseTransform getResponseTransformFor(RedisCommand command) {
     if (command == RedisCommand.HGETALL) {
       return ResponseTransform.HASH;
@@ -45,12 +55,81 @@ public abstract class AbstractRedisClient extends BaseRedisClient<RedisCommand>
     return ResponseTransform.NONE;
   }
 
+  /**
+   * Sends the GET and SET commands merged on the current context before any other command, so the order is kept.
+   */
+  private void flushCoalesced() {
+    if (coalescer != null) {
+      coalescer.flush();
+    }
+  }
+
+  /**
+   * Sends a command whose bulk reply is delivered as a stream, large replies are streamed by the connection instead of
+   * being buffered.
+   */
+  @SuppressWarnings("unchecked")
+  final void sendStream(final RedisCommand command, final List<?> redisArgs,
+                        final Handler<AsyncResult<ReadStream<Buffer>>> resultHandler) {
+    flushCoalesced();
+
+    final Command<ReadStream<Buffer>> cmd = new Command<>(Vertx.currentContext(), command, redisArgs, binaryCharset, ResponseTransform.STREAM, (Class<ReadStream<Buffer>>) (Class) ReadStream.class, zeroCopyThreshold).timeout(commandTimeout).handler(resultHandler);
+
+    redis.send(cmd);
+  }
+
+  /**
+   * Sends a command whose reply is pushed to the given decoder while it is parsed.
+   */
+  final <T> void sendDecoded(final RedisCommand command, final List<?> redisArgs, final ReplyDecoder<T> decoder,
+                             final Handler<AsyncResult<T>> resultHandler) {
+    sendDecoded(command, redisArgs, decoder, false, resultHandler);
+  }
+
+  @SuppressWarnings("unchecked")
+  final <T> void sendDecoded(final RedisCommand command, final List<?> redisArgs, final ReplyDecoder<T> decoder,
+                             final boolean binary, final Handler<AsyncResult<T>> resultHandler) {
+    flushCoalesced();
+
+    final Command<T> cmd = new Command<>(Vertx.currentContext(), command, redisArgs, binary ? binaryCharset : charset, ResponseTransform.NONE, (Class<T>) Object.class, zeroCopyThreshold).decoder(decoder).timeout(commandTimeout).handler(resultHandler);
+
+    redis.send(cmd);
+  }
+
+  /**
+   * Sends several commands encoded in a single request.
+   */
+  final void sendBatch(final BatchCommand batch) {
+    flushCoalesced();
+    redis.send(batch.timeout(commandTimeout));
+  }
+
   @Override
   final <T> void send(final RedisCommand command, final List<?> redisArgs, final Class<T> returnType,
                       final boolean binary,
                       final Handler<AsyncResult<T>> resultHandler) {
+    send(command, redisArgs, returnType, binary, false, resultHandler);
+  }
+
+  /**
+   * @param pinned true if the command must be sent to the primary connection of the pool, e.g.: the commands of a
+   *               transaction
+   */
+  final <T> void send(final RedisCommand command, final List<?> redisArgs, final Class<T> returnType,
+                      final boolean binary, final boolean pinned,
+                      final Handler<AsyncResult<T>> resultHandler) {
+    flushCoalesced();
 
-    final Command<T> cmd = new Command<>(Vertx.currentContext(), command, redisArgs, binary ? binaryCharset : charset, getResponseTransformFor(command), returnType).handler(resultHandler);
+    if (nearCache != null) {
+      // the client reads its own writes without waiting for the notification of the change
+      nearCache.invalidate(command, redisArgs);
+    }
+    if (singleFlight != null) {
+      // the reads sent after a write do not share the reply of a read sent before it
+      singleFlight.detach(command, redisArgs);
+    }
+
+    final Command<T> cmd = new Command<>(Vertx.currentContext(), command, redisArgs, binary ? binaryCharset : charset, getResponseTransformFor(command), returnType, zeroCopyThreshold).timeout(commandTimeout).handler(resultHandler);
 
     switch (command) {
       case PSUBSCRIBE:
@@ -129,13 +208,82 @@ public abstract class AbstractRedisClient extends BaseRedisClient<RedisCommand>
         break;
       case QUIT:
         // this is a special case that must be sent to all connections
-        redis.send(cmd);
+        redis.sendAll(cmd);
         pubsub.send(cmd);
         break;
+      case CLIENT_REPLY:
+        // the connection tracks which commands are answered
+        cmd.clientReply(ClientReplyOptions.valueOf(redisArgs.get(0).toString()));
+        redis.sendPinned(cmd);
+        break;
+      case SELECT:
+        if (!pinned) {
+          select(command, redisArgs, binary, returnType, resultHandler);
+        } else if (redis.isSingle()) {
+          // the only connection is the one of the transaction
+          redis.sendPinned(cmd);
+        } else {
+          // queued in the transaction, it would only change the database of the primary connection
+          cmd.handle(Future.failedFuture("SELECT cannot be part of a transaction when the client has more than one connection, use RedisClient.select"));
+        }
+        break;
+      case MULTI:
+      case EXEC:
+      case DISCARD:
+      case WATCH:
+      case UNWATCH:
+      case CLIENT_SETNAME:
+      case MONITOR:
+        // these change or depend on the state of the connection, they are always sent to the same one
+        redis.sendPinned(cmd);
+        break;
+      case BLPOP:
+      case BRPOP:
+      case BRPOPLPUSH:
+      case WAIT:
+        // these may block the connection for a long time, they do not delay the other commands unless they are part
+        // of a transaction, where they do not block
+        cmd.timeout(0);
+
+        if (pinned) {
+          redis.sendPinned(cmd);
+        } else {
+          redis.sendBlocking(cmd);
+        }
+        break;
       default:
-        // all other commands are sent to the normal connection
-        redis.send(cmd);
+        // all other commands are spread over the normal connections
+        if (pinned) {
+          redis.sendPinned(cmd);
+        } else if (singleFlight != null && !fireAndForget && SingleFlight.isRead(command)) {
+          singleFlight.send(command, redisArgs, cmd, redis::send);
+        } else {
+          redis.send(cmd.fireAndForget(fireAndForget));
+        }
         break;
     }
   }
+  /**
+   * Changes the database of every connection, the connections opened later select it too. The local state of the
+   * previous database (near cache, reads in flight) is dropped.
+   */
+  private <T> void select(final RedisCommand command, final List<?> redisArgs, final boolean binary,
+                          final Class<T> returnType, final Handler<AsyncResult<T>> resultHandler) {
+    final int db = Integer.parseInt(redisArgs.get(0).toString());
+    final Context context = Vertx.currentContext();
+
+    config.setSelect(db);
+
+    if (nearCache != null) {
+      nearCache.clear();
+    }
+    if (notifications != null) {
+      notifications.select(db);
+    }
+    if (singleFlight != null) {
+      singleFlight.clear();
+    }
+
+    redis.sendAll(() -> new Command<>(context, command, redisArgs, binary ? binaryCharset : charset, ResponseTransform.NONE, returnType, zeroCopyThreshold).timeout(commandTimeout), resultHandler);
+  }
 }
@@ -7,6 +7,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.redis.NearCacheInvalidation;
 import io.vertx.redis.RedisOptions;
 
 import java.nio.charset.Charset;
@@ -21,22 +22,83 @@ abstract class BaseRedisClient<C> {
   final Charset charset;
   final Charset binaryCharset;
   final String baseAddress;
-
-  // we need 2 connections, one for normal commands and a second in case we do pub/sub
-  final RedisConnection redis;
+  final int zeroCopyThreshold;
+  final long commandTimeout;
+  // commands complete once written, without waiting for their reply
+  final boolean fireAndForget;
+  // merges the GET and SET commands of a tick, null unless enabled
+  final CommandCoalescer coalescer;
+  // identical reads in flight share their reply, null unless enabled
+  final SingleFlight singleFlight;
+  // local copy of the reads, null unless enabled
+  final NearCache nearCache;
+  // keeps the near cache up to date with the keyspace notifications of the selected database, null unless enabled
+  final NearCacheNotifications notifications;
+  // a copy of the options, SELECT changes the database the connections select
+  final RedisOptions config;
+
+  // we need 2 kinds of connections, a pool for normal commands and a second in case we do pub/sub
+  final RedisConnectionPool redis;
   final RedisConnection pubsub;
 
-  BaseRedisClient(Vertx vertx, RedisOptions config) {
+  BaseRedisClient(Vertx vertx, RedisOptions options) {
+    final RedisOptions config = new RedisOptions(options);
+
+    this.config = config;
     this.eb = vertx.eventBus();
     this.encoding = config.getEncoding();
     this.charset = Charset.forName(encoding);
     this.binaryCharset = Charset.forName("iso-8859-1");
     this.baseAddress = config.getAddress();
+    this.zeroCopyThreshold = config.getZeroCopyThreshold();
+    this.commandTimeout = config.getCommandTimeout();
+    this.fireAndForget = false;
+    this.coalescer = config.isCommandCoalescing() ? new CommandCoalescer() : null;
+    this.singleFlight = config.isReadDeduplication() ? new SingleFlight() : null;
 
     subscriptions = new RedisSubscriptions(vertx);
 
-    redis = new RedisConnection(vertx, config, null);
+    redis = new RedisConnectionPool(vertx, config);
     pubsub = new RedisConnection(vertx, config, subscriptions);
+
+    if (config.getNearCacheMaxSize() > 0) {
+      nearCache = new NearCache(config);
+
+      if (config.getNearCacheInvalidation() == NearCacheInvalidation.KEYSPACE_NOTIFICATIONS) {
+        notifications = new NearCacheNotifications(nearCache, pubsub, subscriptions, charset, config.getSelect() == null ? 0 : config.getSelect());
+      } else {
+        notifications = null;
+        new NearCacheTracking(nearCache, redis, pubsub, subscriptions, charset);
+      }
+    } else {
+      nearCache = null;
+      notifications = null;
+    }
+  }
+
+  /**
+   * Creates a view of another client that shares its connections but uses another command timeout or sends its
+   * commands without waiting for their reply.
+   */
+  BaseRedisClient(BaseRedisClient<C> other, long commandTimeout, boolean fireAndForget) {
+    this.eb = other.eb;
+    this.encoding = other.encoding;
+    this.charset = other.charset;
+    this.binaryCharset = other.binaryCharset;
+    this.baseAddress = other.baseAddress;
+    this.zeroCopyThreshold = other.zeroCopyThreshold;
+    this.commandTimeout = commandTimeout;
+    this.fireAndForget = fireAndForget;
+    this.coalescer = other.coalescer;
+    this.singleFlight = other.singleFlight;
+    this.nearCache = other.nearCache;
+    this.notifications = other.notifications;
+    this.config = other.config;
+
+    subscriptions = other.subscriptions;
+
+    redis = other.redis;
+    pubsub = other.pubsub;
   }
 
   public synchronized void close(Handler<AsyncResult<Void>> handler) {
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.impl.NoStackTraceThrowable;
+import io.vertx.core.json.JsonArray;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Several commands encoded in a single request. The connection handles it as one command expecting a reply per
+ * batched command, the replies are collected and the handler is called once with all of them.
+ * <p>
+ * An error reply only fails its own entry, a failure of the whole command (e.g.: the connection was closed) fails the
+ * batch.
+ */
+class BatchCommand extends Command<List<Object>> {
+
+  private final List<Object> results;
+
+  @SuppressWarnings("unchecked")
+  BatchCommand(Context context, List<Command<?>> commands, Charset encoding) {
+    super(context, concat(commands), encoding, (Class<List<Object>>) (Class) List.class);
+    setExpectedReplies(commands.size());
+    results = new ArrayList<>(commands.size());
+  }
+
+  /**
+   * Composes the requests into a single buffer without copying them, they are written at once.
+   */
+  private static Buffer concat(List<Command<?>> commands) {
+    final ByteBuf[] frames = new ByteBuf[commands.size()];
+
+    for (int i = 0; i < frames.length; i++) {
+      frames[i] = commands.get(i).buffer().getByteBuf();
+    }
+
+    return Buffer.buffer(Unpooled.wrappedBuffer(frames.length, frames));
+  }
+
+  /**
+   * Handles the reply of the next batched command.
+   */
+  void reply(Reply reply) {
+    switch (reply.type()) {
+      case '-':
+        results.add(new NoStackTraceThrowable(reply.asType(String.class)));
+        break;
+      case '+':
+        results.add(reply.asType(String.class));
+        break;
+      case ':':
+        results.add(reply.asType(Long.class));
+        break;
+      case '$':
+        results.add(reply.asType(String.class, encoding()));
+        break;
+      case '*':
+        results.add(reply.asType(JsonArray.class, encoding()));
+        break;
+      default:
+        results.add(new NoStackTraceThrowable("Unknown message type"));
+        break;
+    }
+
+    if (results.size() == getExpectedReplies()) {
+      handle(Future.succeededFuture(Collections.unmodifiableList(results)));
+    }
+  }
+
+  @Override
+  public void handle(AsyncResult<List<Object>> asyncResult) {
+    // a failure may come after some replies were collected, the handler is only called once
+    if (!isDone()) {
+      super.handle(asyncResult);
+    }
+  }
+}
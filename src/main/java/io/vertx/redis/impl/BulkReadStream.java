@@ -0,0 +1,167 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The payload of a single bulk reply exposed as a stream of buffers.
+ * <p>
+ * The parser writes the chunks from the connection context, they are delivered to the handlers on the context of the
+ * caller. The parser stops writing while the stream is not flowing (paused or without a handler) and the drain handler
+ * is called once it flows again, so at most the chunks written before the parser noticed the pause are held here.
+ */
+class BulkReadStream implements ReadStream<Buffer> {
+
+  private final Context context;
+  private final Handler<Void> drainHandler;
+  private final Deque<Buffer> pending = new ArrayDeque<>();
+
+  // read by the parser on the connection context
+  private volatile boolean flowing;
+
+  private boolean paused;
+  private boolean ended;
+  private boolean endNotified;
+  private Handler<Buffer> handler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+
+  BulkReadStream(Context context, Handler<Void> drainHandler) {
+    this.context = context;
+    this.drainHandler = drainHandler;
+  }
+
+  /**
+   * Creates a stream for a reply that was fully buffered.
+   */
+  static BulkReadStream of(Context context, Buffer payload) {
+    final BulkReadStream stream = new BulkReadStream(context, v -> {});
+
+    stream.write(payload);
+    stream.end();
+
+    return stream;
+  }
+
+  boolean isFlowing() {
+    return flowing;
+  }
+
+  // parser side
+
+  void write(Buffer chunk) {
+    runOnContext(v -> {
+      if (!paused && handler != null && pending.isEmpty()) {
+        handler.handle(chunk);
+      } else {
+        pending.add(chunk);
+      }
+    });
+  }
+
+  void end() {
+    runOnContext(v -> {
+      ended = true;
+      checkEnd();
+    });
+  }
+
+  void fail(Throwable cause) {
+    runOnContext(v -> {
+      if (!endNotified && exceptionHandler != null) {
+        exceptionHandler.handle(cause);
+      }
+      endNotified = true;
+      pending.clear();
+    });
+  }
+
+  // user side
+
+  @Override
+  public BulkReadStream exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public BulkReadStream handler(Handler<Buffer> handler) {
+    this.handler = handler;
+    drain();
+    return this;
+  }
+
+  @Override
+  public BulkReadStream pause() {
+    paused = true;
+    flowing = false;
+    return this;
+  }
+
+  @Override
+  public BulkReadStream resume() {
+    paused = false;
+    drain();
+    return this;
+  }
+
+  @Override
+  public BulkReadStream endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    checkEnd();
+    return this;
+  }
+
+  private void drain() {
+    Buffer chunk;
+
+    while (!paused && handler != null && (chunk = pending.poll()) != null) {
+      handler.handle(chunk);
+    }
+
+    final boolean wasFlowing = flowing;
+    flowing = !paused && handler != null;
+
+    if (flowing && !wasFlowing && !ended) {
+      drainHandler.handle(null);
+    }
+
+    checkEnd();
+  }
+
+  private void checkEnd() {
+    if (ended && !endNotified && pending.isEmpty() && endHandler != null) {
+      endNotified = true;
+      endHandler.handle(null);
+    }
+  }
+
+  private void runOnContext(Handler<Void> action) {
+    if (context == null || Vertx.currentContext() == context) {
+      action.handle(null);
+    } else {
+      context.runOnContext(action);
+    }
+  }
+}
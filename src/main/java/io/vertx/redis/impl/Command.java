@@ -15,14 +15,19 @@
  */
 package io.vertx.redis.impl;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Context;
 import io.vertx.core.Handler;
-import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.streams.WriteStream;
+import io.vertx.redis.ReplyDecoder;
+import io.vertx.redis.op.ClientReplyOptions;
 
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Command<T> {
@@ -32,6 +37,7 @@ public class Command<T> {
   private static final byte BYTES_PREFIX = '$';
 
   private static final byte[] NEG_ONE = convert(-1);
+  private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
 
   // Cache 256 number conversions. That should cover a huge
   // percentage of numbers passed over the wire.
@@ -51,8 +57,36 @@ public class Command<T> {
   private final Class<T> returnType;
   private int expectedReplies = 1;
   private Handler<AsyncResult<T>> handler;
+  private ReplyDecoder<T> decoder;
+  // milliseconds to wait for the reply once written, 0 to wait forever
+  private long timeout;
+  // set once a reply or a failure was handled, read by the timeout wheel of the connection
+  private volatile boolean done;
+  // completed once written, its reply is not needed
+  private boolean fireAndForget;
+  // the reply mode set by a CLIENT REPLY command, null for other commands
+  private ClientReplyOptions clientReply;
 
   public Command(Context context, AbstractCommand command, final List<?> args, Charset encoding, ResponseTransform transform, Class<T> returnType) {
+    this(context, command, args, encoding, transform, returnType, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a command from a request that was already encoded, e.g.: several commands sent as a batch.
+   */
+  Command(Context context, Buffer buffer, Charset encoding, Class<T> returnType) {
+    this.context = context;
+    this.encoding = encoding.name();
+    this.transform = ResponseTransform.NONE;
+    this.returnType = returnType;
+    this.buffer = buffer;
+  }
+
+  /**
+   * @param zeroCopyThreshold the size from which Buffer and byte[] arguments are not copied into the request but
+   *                          written by reference, -1 if they are always copied
+   */
+  public Command(Context context, AbstractCommand command, final List<?> args, Charset encoding, ResponseTransform transform, Class<T> returnType, int zeroCopyThreshold) {
     this.context = context;
     this.encoding = encoding.name();
 
@@ -66,23 +100,101 @@ public class Command<T> {
       totalArgs = args.size();
     }
 
-    String[] commandTokens = command.getTokens();
+    final byte[] name = command.getBytes();
+    final int totalTokens = totalArgs + command.getTokens().length;
+    // arguments without a fast path, converted once while sizing the frame
+    Object[] converted = null;
 
-    // serialize the request
-    buffer = Buffer.buffer();
-    buffer.appendByte(ARGS_PREFIX);
-    buffer.appendBytes(numToBytes(totalArgs + commandTokens.length));
-    buffer.appendBytes(CRLF);
+    // size the request
+    int size = 1 + numLength(totalTokens) + 2 + name.length;
 
-    // serialize the command
-    for (String token : commandTokens) {
-      appendToBuffer(token.getBytes(encoding), encoding, buffer);
+    for (int i = 0; i < totalArgs; i++) {
+      final Object value = args.get(i);
+      int length = length(value);
+
+      if (isReference(value, zeroCopyThreshold)) {
+        // only the header and the delimiter are in the request
+        size += 1 + numLength(length) + 2 + 2;
+        continue;
+      }
+
+      if (length == -1) {
+        if (converted == null) {
+          converted = new Object[totalArgs];
+        }
+        converted[i] = stringify(value, encoding);
+        length = length(converted[i]);
+      }
+
+      size += 1 + numLength(length) + 2 + length + 2;
     }
 
+    // serialize the request
+    final byte[] bytes = new byte[size];
+
+    bytes[0] = ARGS_PREFIX;
+    int pos = writeNumber(bytes, 1, totalTokens);
+    pos = writeCRLF(bytes, pos);
+
+    // the command is serialized once per command type
+    System.arraycopy(name, 0, bytes, pos, name.length);
+    pos += name.length;
+
+    // the request is cut around the arguments written by reference
+    List<ByteBuf> parts = null;
+    int from = 0;
+
     // serialize arguments
     for (int i = 0; i < totalArgs; i++) {
-      appendToBuffer(args.get(i), encoding, buffer);
+      final Object value = converted != null && converted[i] != null ? converted[i] : args.get(i);
+
+      if (isReference(value, zeroCopyThreshold)) {
+        final ByteBuf payload = value instanceof Buffer ? ((Buffer) value).getByteBuf() : Unpooled.wrappedBuffer((byte[]) value);
+
+        bytes[pos++] = BYTES_PREFIX;
+        pos = writeNumber(bytes, pos, payload.readableBytes());
+        pos = writeCRLF(bytes, pos);
+
+        if (parts == null) {
+          parts = new ArrayList<>();
+        }
+        parts.add(Unpooled.wrappedBuffer(bytes, from, pos - from));
+        parts.add(payload);
+
+        from = pos;
+        pos = writeCRLF(bytes, pos);
+      } else {
+        pos = write(bytes, pos, value, encoding);
+      }
+    }
+
+    if (parts == null) {
+      // the frame is written as is, no copy
+      buffer = Buffer.buffer(Unpooled.wrappedBuffer(bytes));
+    } else {
+      parts.add(Unpooled.wrappedBuffer(bytes, from, pos - from));
+      buffer = Buffer.buffer(Unpooled.wrappedBuffer(parts.toArray(new ByteBuf[parts.size()])));
+    }
+  }
+
+  /**
+   * Serializes the tokens of a command name as bulk strings, command names are plain ASCII whatever the encoding of
+   * the arguments is.
+   */
+  public static byte[] encodeTokens(String[] tokens) {
+    final Buffer buffer = Buffer.buffer();
+
+    for (String token : tokens) {
+      final byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+
+      buffer.appendByte(BYTES_PREFIX);
+      buffer.appendBytes(numToBytes(bytes.length));
+      buffer.appendBytes(CRLF);
+      buffer.appendBytes(bytes);
+      buffer.appendBytes(CRLF);
     }
+
+    return buffer.getBytes();
   }
 
   // Optimized for the direct to ASCII bytes case
@@ -122,6 +234,26 @@ public class Command<T> {
     return this;
   }
 
+  public Command<T> decoder(ReplyDecoder<T> decoder) {
+    this.decoder = decoder;
+    return this;
+  }
+
+  public Command<T> timeout(long timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  public Command<T> fireAndForget(boolean fireAndForget) {
+    this.fireAndForget = fireAndForget;
+    return this;
+  }
+
+  public Command<T> clientReply(ClientReplyOptions clientReply) {
+    this.clientReply = clientReply;
+    return this;
+  }
+
   public int getExpectedReplies() {
     return expectedReplies;
   }
@@ -145,16 +277,48 @@ public class Command<T> {
     return returnType;
   }
 
+  Context context() {
+    return context;
+  }
+
+  Handler<AsyncResult<T>> handler() {
+    return handler;
+  }
+
+  public ReplyDecoder<T> decoder() {
+    return decoder;
+  }
+
+  Buffer buffer() {
+    return buffer;
+  }
+
+  public long timeout() {
+    return timeout;
+  }
+
+  boolean isDone() {
+    return done;
+  }
+
+  boolean isFireAndForget() {
+    return fireAndForget;
+  }
+
+  ClientReplyOptions clientReply() {
+    return clientReply;
+  }
+
   // methods
 
   public void handle(AsyncResult<T> asyncResult) {
+    done = true;
+    // the handler may be reset before it runs on its context
+    final Handler<AsyncResult<T>> handler = this.handler;
+
     if (handler != null) {
       if (context != null) {
-        if (Vertx.currentContext() == context) {
-          handler.handle(asyncResult);
-        } else {
-          context.runOnContext(v -> handler.handle(asyncResult));
-        }
+        Contexts.run(context, v -> handler.handle(asyncResult));
       } else {
         handler.handle(asyncResult);
       }
@@ -165,39 +329,180 @@ public class Command<T> {
     writeStream.write(buffer);
   }
 
-  private void appendToBuffer(final Object value, final Charset encoding, final Buffer buffer) {
-    buffer.appendByte(BYTES_PREFIX);
+  private static boolean isReference(final Object value, final int zeroCopyThreshold) {
+    return zeroCopyThreshold >= 0 && ((value instanceof Buffer && ((Buffer) value).length() >= zeroCopyThreshold)
+      || (value instanceof byte[] && ((byte[]) value).length >= zeroCopyThreshold));
+  }
+
+  /**
+   * Returns the length of a serialized argument for the types that have a fast path: numbers and strings that are
+   * plain ASCII are written without being converted to an intermediate array first.
+   *
+   * @return the length or -1 if the argument has to be converted
+   */
+  private static int length(final Object value) {
     if (value == null) {
-      buffer.appendByte((byte) '0');
-      buffer.appendBytes(CRLF);
-      buffer.appendBytes(CRLF);
+      return 0;
+    }
+    if (value instanceof String) {
+      return asciiLength((String) value);
+    }
+    if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    }
+    if (value instanceof Buffer) {
+      return ((Buffer) value).length();
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      return numLength(((Number) value).longValue());
+    }
+    if ((value instanceof Double || value instanceof Float) && isWhole(((Number) value).doubleValue())) {
+      // followed by ".0"
+      return numLength(((Number) value).longValue()) + 2;
+    }
+    return -1;
+  }
+
+  /**
+   * @return true if toString writes the number as its integer part followed by ".0", the other numbers are written
+   * with toString: the shortest representation of a fraction has no cheap equivalent
+   */
+  private static boolean isWhole(final double value) {
+    // toString switches to the scientific notation from 10^7, and writes the sign of -0.0
+    return value == (long) value && Math.abs(value) < 1e7 && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO;
+  }
+
+  /**
+   * Converts an argument without a fast path: its string representation if it is plain ASCII, its encoded bytes
+   * otherwise. Possible types are: String, JsonObject, JsonArray, Number, Boolean.
+   */
+  private static Object stringify(final Object value, final Charset encoding) {
+    final String str = value.toString();
+
+    if (asciiLength(str) != -1) {
+      return str;
+    }
+
+    return str.getBytes(encoding);
+  }
+
+  private static int write(final byte[] bytes, int pos, final Object value, final Charset encoding) {
+    bytes[pos++] = BYTES_PREFIX;
+
+    if (value == null) {
+      bytes[pos++] = '0';
+      pos = writeCRLF(bytes, pos);
+      return writeCRLF(bytes, pos);
+    }
+
+    if (value instanceof String) {
+      final String str = (String) value;
+      final int length = str.length();
+
+      pos = writeNumber(bytes, pos, length);
+      pos = writeCRLF(bytes, pos);
+      // the length was computed for plain ASCII, which is the same in every supported encoding
+      for (int i = 0; i < length; i++) {
+        bytes[pos++] = (byte) str.charAt(i);
+      }
+    } else if (value instanceof byte[]) {
+      final byte[] src = (byte[]) value;
+
+      pos = writeNumber(bytes, pos, src.length);
+      pos = writeCRLF(bytes, pos);
+      System.arraycopy(src, 0, bytes, pos, src.length);
+      pos += src.length;
+    } else if (value instanceof Buffer) {
+      final Buffer src = (Buffer) value;
+      final int length = src.length();
+
+      pos = writeNumber(bytes, pos, length);
+      pos = writeCRLF(bytes, pos);
+      src.getByteBuf().getBytes(0, bytes, pos, length);
+      pos += length;
+    } else if (value instanceof Double || value instanceof Float) {
+      // a whole number, the others were converted
+      final long number = ((Number) value).longValue();
+
+      pos = writeNumber(bytes, pos, numLength(number) + 2);
+      pos = writeCRLF(bytes, pos);
+      pos = writeNumber(bytes, pos, number);
+      bytes[pos++] = '.';
+      bytes[pos++] = '0';
     } else {
-      byte[] bytes;
-      // Possible types are: String, JsonObject, JsonArray, JsonElement, Number, Boolean, byte[]
-
-      if (value instanceof byte[]) {
-        bytes = (byte[]) value;
-      } else if (value instanceof Buffer) {
-        bytes = ((Buffer) value).getBytes();
-      } else if (value instanceof String) {
-        bytes = ((String) value).getBytes(encoding);
-      } else if (value instanceof Byte) {
-        bytes = numToBytes((Byte) value);
-      } else if (value instanceof Short) {
-        bytes = numToBytes((Short) value);
-      } else if (value instanceof Integer) {
-        bytes = numToBytes((Integer) value);
-      } else if (value instanceof Long) {
-        bytes = numToBytes((Long) value);
-      } else {
-        bytes = value.toString().getBytes(encoding);
+      final long number = ((Number) value).longValue();
+
+      pos = writeNumber(bytes, pos, numLength(number));
+      pos = writeCRLF(bytes, pos);
+      pos = writeNumber(bytes, pos, number);
+    }
+
+    return writeCRLF(bytes, pos);
+  }
+
+  /**
+   * @return the length of a string that only contains ASCII characters or -1
+   */
+  private static int asciiLength(final String str) {
+    final int length = str.length();
+
+    for (int i = 0; i < length; i++) {
+      if (str.charAt(i) > 0x7F) {
+        return -1;
       }
+    }
 
-      buffer.appendBytes(numToBytes(bytes.length));
+    return length;
+  }
 
-      buffer.appendBytes(CRLF);
-      buffer.appendBytes(bytes);
-      buffer.appendBytes(CRLF);
+  private static int numLength(long value) {
+    if (value >= 0 && value < NUM_MAP_LENGTH) {
+      return numMap[(int) value].length;
+    }
+
+    int length = 1;
+    if (value < 0) {
+      length++;
+    } else {
+      // accumulated as a negative number so that Long.MIN_VALUE does not overflow
+      value = -value;
     }
+
+    while (value <= -10) {
+      value /= 10;
+      length++;
+    }
+
+    return length;
+  }
+
+  private static int writeNumber(final byte[] bytes, final int pos, long value) {
+    if (value >= 0 && value < NUM_MAP_LENGTH) {
+      final byte[] cached = numMap[(int) value];
+      System.arraycopy(cached, 0, bytes, pos, cached.length);
+      return pos + cached.length;
+    }
+
+    final int end = pos + numLength(value);
+    int index = end;
+
+    if (value < 0) {
+      bytes[pos] = '-';
+    } else {
+      value = -value;
+    }
+
+    do {
+      bytes[--index] = (byte) ('0' - (value % 10));
+      value /= 10;
+    } while (value != 0);
+
+    return end;
+  }
+
+  private static int writeCRLF(final byte[] bytes, final int pos) {
+    bytes[pos] = '\r';
+    bytes[pos + 1] = '\n';
+    return pos + 2;
   }
 }
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.redis.ReplyDecoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the consecutive GET and SET commands issued from an event loop context during a tick into a single MGET or
+ * MSET, sent once the tick ends. The replies are dispatched to the handler of each merged command.
+ * <p>
+ * The commands gathered are kept in the local data of the context, so no synchronization is needed. Any other
+ * command sent from the context sends them first, the order of the commands is the order they were issued.
+ */
+final class CommandCoalescer {
+
+  private enum Kind {
+    GET, GET_BINARY, SET
+  }
+
+  /**
+   * The commands gathered on a context, all of the same kind and issued by the same client. The handlers are kept in
+   * the list of their kind.
+   */
+  private static final class Batch {
+    final AbstractRedisClient client;
+    final Kind kind;
+    final List<Object> args = new ArrayList<>();
+    final List<Handler<AsyncResult<String>>> gets = new ArrayList<>();
+    final List<Handler<AsyncResult<Buffer>>> binaryGets = new ArrayList<>();
+    final List<Handler<AsyncResult<Void>>> sets = new ArrayList<>();
+
+    Batch(AbstractRedisClient client, Kind kind) {
+      this.client = client;
+      this.kind = kind;
+    }
+
+    int size() {
+      return gets.size() + binaryGets.size() + sets.size();
+    }
+  }
+
+  // key of the batch in the local data of the contexts, one per client and its views
+  private final String key = "__vertx.redis.coalescer." + System.identityHashCode(this);
+
+  /**
+   * @return false if the command cannot be merged, e.g.: it is not issued from an event loop
+   */
+  boolean get(AbstractRedisClient client, String key, Handler<AsyncResult<String>> handler) {
+    final Batch batch = batch(client, Kind.GET, key);
+
+    if (batch == null) {
+      return false;
+    }
+    batch.args.add(key);
+    batch.gets.add(handler);
+    return true;
+  }
+
+  boolean getBinary(AbstractRedisClient client, String key, Handler<AsyncResult<Buffer>> handler) {
+    final Batch batch = batch(client, Kind.GET_BINARY, key);
+
+    if (batch == null) {
+      return false;
+    }
+    batch.args.add(key);
+    batch.binaryGets.add(handler);
+    return true;
+  }
+
+  boolean set(AbstractRedisClient client, String key, String value, Handler<AsyncResult<Void>> handler) {
+    // a null value is dropped from the request and fails it, it is not merged
+    final Batch batch = value == null ? null : batch(client, Kind.SET, key);
+
+    if (batch == null) {
+      return false;
+    }
+    batch.args.add(key);
+    batch.args.add(value);
+    batch.sets.add(handler);
+    return true;
+  }
+
+  /**
+   * Sends the commands gathered on the current context, if any.
+   */
+  void flush() {
+    final Context context = Vertx.currentContext();
+
+    if (context != null) {
+      flush(context);
+    }
+  }
+
+  /**
+   * @return the batch of the current context a command of the given kind joins, null if it cannot be merged
+   */
+  private Batch batch(AbstractRedisClient client, Kind kind, String key) {
+    final Context context = Vertx.currentContext();
+
+    if (key == null || context == null || !context.isEventLoopContext()) {
+      return null;
+    }
+
+    Batch batch = context.get(this.key);
+
+    if (batch != null && (batch.client != client || batch.kind != kind)) {
+      flush(context);
+      batch = null;
+    }
+
+    if (batch == null) {
+      batch = new Batch(client, kind);
+      context.put(this.key, batch);
+      context.runOnContext(v -> flush(context));
+    }
+
+    return batch;
+  }
+
+  private void flush(Context context) {
+    final Batch batch = context.get(key);
+
+    if (batch != null) {
+      // removed first, sending it would flush it again
+      context.remove(key);
+      send(batch);
+    }
+  }
+
+  private static void send(Batch batch) {
+    final AbstractRedisClient client = batch.client;
+
+    // a single command is sent as is, it fails as usual
+    if (batch.size() == 1) {
+      switch (batch.kind) {
+        case GET:
+          client.sendString(RedisCommand.GET, batch.args, batch.gets.get(0));
+          break;
+        case GET_BINARY:
+          client.send(RedisCommand.GET, batch.args, Buffer.class, true, batch.binaryGets.get(0));
+          break;
+        case SET:
+          client.sendVoid(RedisCommand.SET, batch.args, batch.sets.get(0));
+          break;
+      }
+      return;
+    }
+
+    switch (batch.kind) {
+      case GET:
+      case GET_BINARY:
+        final boolean binary = batch.kind == Kind.GET_BINARY;
+
+        client.sendDecoded(RedisCommand.MGET, batch.args, ReplyDecoder.bufferList(), binary, mget -> {
+          for (int i = 0; i < batch.size(); i++) {
+            final int index = i;
+
+            if (binary) {
+              complete(batch.binaryGets.get(index), mget.map(values -> values.get(index)));
+            } else {
+              complete(batch.gets.get(index), mget.map(values -> {
+                final Buffer value = values.get(index);
+                return value == null ? null : value.toString(client.charset);
+              }));
+            }
+          }
+        });
+        break;
+      case SET:
+        client.sendVoid(RedisCommand.MSET, batch.args, mset -> {
+          for (Handler<AsyncResult<Void>> handler : batch.sets) {
+            complete(handler, mset);
+          }
+        });
+        break;
+    }
+  }
+
+  private static <T> void complete(Handler<AsyncResult<T>> handler, AsyncResult<T> result) {
+    if (handler != null) {
+      handler.handle(result);
+    }
+  }
+}
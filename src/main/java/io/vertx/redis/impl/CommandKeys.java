@@ -0,0 +1,179 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * The positions of the keys in the arguments of the commands that modify them.
+ */
+final class CommandKeys {
+
+  private CommandKeys() {
+  }
+
+  /**
+   * Calls the action with each key the command may modify, nothing is called for the commands that modify no key.
+   * The keys given as binary arguments are not reported.
+   */
+  static void written(RedisCommand command, List<?> args, Consumer<String> action) {
+    if (args == null || args.isEmpty()) {
+      return;
+    }
+
+    switch (command) {
+      // the first argument
+      case APPEND:
+      case BITFIELD:
+      case DECR:
+      case DECRBY:
+      case EXPIRE:
+      case EXPIREAT:
+      case GEOADD:
+      case GETSET:
+      case HDEL:
+      case HINCRBY:
+      case HINCRBYFLOAT:
+      case HMSET:
+      case HSET:
+      case HSETNX:
+      case INCR:
+      case INCRBY:
+      case INCRBYFLOAT:
+      case LINSERT:
+      case LPOP:
+      case LPUSH:
+      case LPUSHX:
+      case LREM:
+      case LSET:
+      case LTRIM:
+      case MOVE:
+      case PERSIST:
+      case PEXPIRE:
+      case PEXPIREAT:
+      case PFADD:
+      case PFMERGE:
+      case PSETEX:
+      case RESTORE:
+      case RPOP:
+      case RPUSH:
+      case RPUSHX:
+      case SADD:
+      case SDIFFSTORE:
+      case SET:
+      case SETBIT:
+      case SETEX:
+      case SETNX:
+      case SETRANGE:
+      case SINTERSTORE:
+      case SPOP:
+      case SREM:
+      case SUNIONSTORE:
+      case ZADD:
+      case ZINCRBY:
+      case ZINTERSTORE:
+      case ZREM:
+      case ZREMRANGEBYLEX:
+      case ZREMRANGEBYRANK:
+      case ZREMRANGEBYSCORE:
+      case ZUNIONSTORE:
+        range(args, 0, 1, 1, action);
+        break;
+      // the source and the destination
+      case BRPOPLPUSH:
+      case RENAME:
+      case RENAMENX:
+      case RPOPLPUSH:
+      case SMOVE:
+        range(args, 0, 2, 1, action);
+        break;
+      // BITOP operation destination key...
+      case BITOP:
+        range(args, 1, 2, 1, action);
+        break;
+      case DEL:
+      case TOUCH:
+        range(args, 0, args.size(), 1, action);
+        break;
+      // the keys followed by the timeout
+      case BLPOP:
+      case BRPOP:
+        range(args, 0, args.size() - 1, 1, action);
+        break;
+      // key value key value...
+      case MSET:
+      case MSETNX:
+        range(args, 0, args.size(), 2, action);
+        break;
+      // script numkeys key...
+      case EVAL:
+      case EVALSHA:
+        if (args.size() > 1) {
+          range(args, 2, 2 + count(args.get(1)), 1, action);
+        }
+        break;
+      // host port key db timeout [COPY] [REPLACE] [KEYS key...]
+      case MIGRATE:
+        range(args, 2, 3, 1, action);
+        range(args, after(args, "KEYS", 5), args.size(), 1, action);
+        break;
+      // key [...] [STORE destination]
+      case SORT:
+        final int store = after(args, "STORE", 1);
+        range(args, store, store + 1, 1, action);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * @return the position following the token, the number of arguments if it is absent
+   */
+  private static int after(List<?> args, String token, int from) {
+    for (int i = from; i < args.size(); i++) {
+      final Object arg = args.get(i);
+
+      if (arg instanceof String && token.equals(((String) arg).toUpperCase(Locale.ROOT))) {
+        return i + 1;
+      }
+    }
+    return args.size();
+  }
+
+  /**
+   * @return the number of keys, 0 if it is not a number: the server fails the command
+   */
+  private static int count(Object numkeys) {
+    try {
+      return Integer.parseInt(String.valueOf(numkeys));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static void range(List<?> args, int from, int to, int step, Consumer<String> action) {
+    for (int i = from; i < to && i < args.size(); i += step) {
+      final Object arg = args.get(i);
+
+      if (arg instanceof String) {
+        action.accept((String) arg);
+      }
+    }
+  }
+}
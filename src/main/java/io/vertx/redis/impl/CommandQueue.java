@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+/**
+ * A FIFO of commands backed by a growable array ring, it does not allocate once it reached the size the connection
+ * needs. Each entry counts down the replies its command still expects so that a command expecting several replies
+ * (e.g. SUBSCRIBE with many channels) takes a single slot.
+ * <p>
+ * Not thread safe, it is only used from the context of its connection.
+ */
+final class CommandQueue {
+
+  private Command<?>[] commands;
+  private int[] remaining;
+  // index of the head and number of entries, the capacity is always a power of 2
+  private int head;
+  private int size;
+
+  CommandQueue() {
+    this(16);
+  }
+
+  CommandQueue(int capacity) {
+    final int cap = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    commands = new Command<?>[cap];
+    remaining = new int[cap];
+  }
+
+  /**
+   * Adds a command that expects a single reply.
+   */
+  void add(Command<?> command) {
+    add(command, 1);
+  }
+
+  /**
+   * Adds a command that expects the given number of replies.
+   */
+  void add(Command<?> command, int replies) {
+    if (size == commands.length) {
+      grow();
+    }
+
+    final int tail = (head + size) & (commands.length - 1);
+    commands[tail] = command;
+    remaining[tail] = replies;
+    size++;
+  }
+
+  /**
+   * @return the command at the head or null if the queue is empty
+   */
+  Command<?> peek() {
+    return size == 0 ? null : commands[head];
+  }
+
+  /**
+   * @return the number of replies the command at the head still expects, 0 if the queue is empty
+   */
+  int remaining() {
+    return size == 0 ? 0 : remaining[head];
+  }
+
+  /**
+   * Removes the command at the head, whatever the number of replies it still expects.
+   *
+   * @return the command or null if the queue is empty
+   */
+  Command<?> poll() {
+    if (size == 0) {
+      return null;
+    }
+
+    final Command<?> command = commands[head];
+    commands[head] = null;
+    head = (head + 1) & (commands.length - 1);
+    size--;
+
+    return command;
+  }
+
+  /**
+   * Accounts for a reply of the command at the head, it is removed once it received all of them.
+   *
+   * @return the command or null if the queue is empty
+   */
+  Command<?> reply() {
+    if (size == 0) {
+      return null;
+    }
+
+    if (--remaining[head] > 0) {
+      return commands[head];
+    }
+
+    return poll();
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void grow() {
+    final int cap = commands.length;
+    final Command<?>[] newCommands = new Command<?>[cap << 1];
+    final int[] newRemaining = new int[cap << 1];
+
+    // unwrap the ring at the start of the new arrays
+    final int first = cap - head;
+    System.arraycopy(commands, head, newCommands, 0, first);
+    System.arraycopy(commands, 0, newCommands, first, head);
+    System.arraycopy(remaining, head, newRemaining, 0, first);
+    System.arraycopy(remaining, 0, newRemaining, first, head);
+
+    commands = newCommands;
+    remaining = newRemaining;
+    head = 0;
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextImpl;
+import io.vertx.core.impl.ContextInternal;
+
+/**
+ * Runs the actions of a connection or of a command on their context.
+ */
+final class Contexts {
+
+  private Contexts() {
+  }
+
+  /**
+   * Runs the action on the context. It runs at once when the current thread is the event loop of the context, e.g.:
+   * a connection bound to the event loop of its caller, the current context is switched meanwhile. Otherwise it is
+   * handed over to the context.
+   */
+  static void run(Context context, Handler<Void> action) {
+    final Context current = Vertx.currentContext();
+
+    if (current == context) {
+      action.handle(null);
+    } else if (context instanceof ContextImpl && context.isEventLoopContext() && ((ContextInternal) context).nettyEventLoop().inEventLoop()) {
+      ContextImpl.setContext((ContextImpl) context);
+      try {
+        action.handle(null);
+      } finally {
+        ContextImpl.setContext((ContextImpl) current);
+      }
+    } else {
+      context.runOnContext(action);
+    }
+  }
+}
@@ -0,0 +1,341 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.redis.NearCacheEviction;
+import io.vertx.redis.RedisOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Local copy of the replies to GET and HGET, bounded by the estimated size of the keys and values it holds.
+ * <p>
+ * The cache is only used while the changes of the keys are notified: it is enabled by the source of the
+ * notifications once they are set up and disabled (and cleared) as soon as they may be lost, e.g.: when the
+ * connection they are received on is closed.
+ * <p>
+ * A reply is only kept if the key was not invalidated while the command was in flight, otherwise a value older than
+ * the notification could be kept. Thread safe, a hit completes the handler at once: the client passes a handler
+ * running on the context of the caller.
+ */
+final class NearCache {
+
+  // estimated overhead of an entry and of a field, on top of the characters
+  private static final int ENTRY_OVERHEAD = 64;
+  private static final int FIELD_OVERHEAD = 32;
+  // number of the oldest entries the least frequently used one is picked from
+  private static final int LFU_SAMPLES = 5;
+
+  private static final class Entry {
+    final long expires;
+    // the reply to GET, if present
+    boolean present;
+    String value;
+    // the replies to HGET
+    Map<String, String> fields;
+    long size;
+    int hits;
+
+    Entry(long expires) {
+      this.expires = expires;
+    }
+  }
+
+  private final long maxSize;
+  private final long ttl;
+  private final NearCacheEviction eviction;
+  private final List<String> prefixes;
+  // the time in milliseconds
+  private final LongSupplier clock;
+
+  private final LinkedHashMap<String, Entry> entries;
+  // keys read from the server, with the id of the read whose reply may be kept
+  private final Map<String, Long> fetching = new HashMap<>();
+  private long sequence;
+  private long size;
+  private boolean enabled;
+
+  NearCache(RedisOptions options) {
+    this(options, () -> System.nanoTime() / 1_000_000);
+  }
+
+  NearCache(RedisOptions options, LongSupplier clock) {
+    this.clock = clock;
+    this.maxSize = options.getNearCacheMaxSize();
+    this.ttl = options.getNearCacheTtl();
+    this.eviction = options.getNearCacheEviction();
+    // a copy, it is read without locking
+    this.prefixes = options.getNearCachePrefixes() == null ? Collections.emptyList() : new ArrayList<>(options.getNearCachePrefixes());
+    // the access order is the LRU order
+    this.entries = new LinkedHashMap<>(16, 0.75f, eviction == NearCacheEviction.LRU);
+  }
+
+  List<String> prefixes() {
+    return prefixes;
+  }
+
+  /**
+   * Serves the cached reply to a GET.
+   *
+   * @return true if the handler was completed
+   */
+  boolean get(String key, Handler<AsyncResult<String>> handler) {
+    final String value;
+
+    synchronized (this) {
+      final Entry entry = lookup(key);
+
+      if (entry == null || !entry.present) {
+        return false;
+      }
+      value = entry.value;
+    }
+
+    if (handler != null) {
+      handler.handle(Future.succeededFuture(value));
+    }
+    return true;
+  }
+
+  /**
+   * Serves the cached reply to a HGET.
+   *
+   * @return true if the handler was completed
+   */
+  boolean get(String key, String field, Handler<AsyncResult<String>> handler) {
+    final String value;
+
+    synchronized (this) {
+      final Entry entry = lookup(key);
+
+      if (entry == null || entry.fields == null || !entry.fields.containsKey(field)) {
+        return false;
+      }
+      value = entry.fields.get(field);
+    }
+
+    if (handler != null) {
+      handler.handle(Future.succeededFuture(value));
+    }
+    return true;
+  }
+
+  /**
+   * @return a handler keeping the reply to a GET (field is null) or a HGET before completing the given handler
+   */
+  Handler<AsyncResult<String>> fill(String key, String field, Handler<AsyncResult<String>> handler) {
+    final long id;
+
+    synchronized (this) {
+      if (!enabled || key == null || !matches(key)) {
+        return handler;
+      }
+
+      Long current = fetching.get(key);
+      if (current == null) {
+        current = ++sequence;
+        fetching.put(key, current);
+      }
+      id = current;
+    }
+
+    return reply -> {
+      if (reply.succeeded()) {
+        store(key, field, id, reply.result());
+      } else {
+        synchronized (this) {
+          fetching.remove(key, id);
+        }
+      }
+
+      if (handler != null) {
+        handler.handle(reply);
+      }
+    };
+  }
+
+  /**
+   * Drops a key, e.g.: it was modified.
+   */
+  synchronized void invalidate(String key) {
+    fetching.remove(key);
+
+    final Entry entry = entries.remove(key);
+    if (entry != null) {
+      size -= entry.size;
+    }
+  }
+
+  /**
+   * Drops the keys a command modifies, or all of them if it flushes a database. The keys out of the prefixes of the
+   * cache are skipped without locking it.
+   */
+  void invalidate(RedisCommand command, List<?> args) {
+    if (command == RedisCommand.FLUSHDB || command == RedisCommand.FLUSHALL) {
+      // no notification is sent for the keys of a flushed database
+      clear();
+      return;
+    }
+
+    CommandKeys.written(command, args, key -> {
+      if (matches(key)) {
+        invalidate(key);
+      }
+    });
+  }
+
+  /**
+   * Starts serving the cached replies, the notifications of the changes are set up.
+   */
+  synchronized void enable() {
+    enabled = true;
+  }
+
+  /**
+   * Stops serving the cached replies and drops them, the notifications of the changes may be lost.
+   */
+  synchronized void disable() {
+    enabled = false;
+    clear();
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    fetching.clear();
+    size = 0;
+  }
+
+  private boolean matches(String key) {
+    if (prefixes.isEmpty()) {
+      return true;
+    }
+
+    for (String prefix : prefixes) {
+      if (key.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Entry lookup(String key) {
+    if (!enabled) {
+      return null;
+    }
+
+    final Entry entry = entries.get(key);
+
+    if (entry != null && entry.expires < clock.getAsLong()) {
+      entries.remove(key);
+      size -= entry.size;
+      return null;
+    }
+
+    if (entry != null && entry.hits < Integer.MAX_VALUE) {
+      entry.hits++;
+    }
+    return entry;
+  }
+
+  private synchronized void store(String key, String field, long id, String value) {
+    final Long current = fetching.get(key);
+
+    // invalidated while in flight, or the cache was disabled
+    if (!enabled || current == null || current != id) {
+      return;
+    }
+
+    // the concurrent reads of the key are not kept, the next read fills the cache again
+    fetching.remove(key);
+
+    Entry entry = lookup(key);
+
+    if (entry == null) {
+      entry = new Entry(ttl > 0 ? clock.getAsLong() + ttl : Long.MAX_VALUE);
+      entry.size = ENTRY_OVERHEAD + 2L * key.length();
+      entries.put(key, entry);
+      size += entry.size;
+    }
+
+    final long before = entry.size;
+
+    if (field == null) {
+      if (entry.present) {
+        entry.size -= length(entry.value);
+      }
+      entry.present = true;
+      entry.value = value;
+      entry.size += length(value);
+    } else {
+      if (entry.fields == null) {
+        entry.fields = new HashMap<>();
+      }
+      final boolean present = entry.fields.containsKey(field);
+      final String previous = entry.fields.put(field, value);
+
+      if (present) {
+        entry.size -= FIELD_OVERHEAD + length(field) + length(previous);
+      }
+      entry.size += FIELD_OVERHEAD + length(field) + length(value);
+    }
+
+    size += entry.size - before;
+
+    while (size > maxSize && !entries.isEmpty()) {
+      evict(key);
+    }
+  }
+
+  /**
+   * Drops an entry, the one just stored is only dropped last: it has no hit yet, so it would always be the least
+   * frequently used one.
+   */
+  private void evict(String stored) {
+    final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    Map.Entry<String, Entry> victim = iterator.next();
+
+    if (victim.getKey().equals(stored) && iterator.hasNext()) {
+      victim = iterator.next();
+    }
+
+    if (eviction == NearCacheEviction.LFU) {
+      for (int i = 1; i < LFU_SAMPLES && iterator.hasNext(); i++) {
+        final Map.Entry<String, Entry> candidate = iterator.next();
+
+        if (!candidate.getKey().equals(stored) && candidate.getValue().hits < victim.getValue().hits) {
+          victim = candidate;
+        }
+      }
+    }
+
+    entries.remove(victim.getKey());
+    size -= victim.getValue().size;
+  }
+
+  private static long length(String value) {
+    return value == null ? 0 : 2L * value.length();
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.json.JsonArray;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a near cache up to date with keyspace notifications, for the servers without client side caching: the pub/sub
+ * connection subscribes to the notifications of the prefixes of the cache in its database, any event of a key (set,
+ * del, expired, ...) evicts it. The server must be configured to send them with {@code notify-keyspace-events}.
+ * FLUSHDB and FLUSHALL notify no key: the cache is cleared when this client sends them, the flushes of the other
+ * clients are only covered by the TTL of the cache.
+ * <p>
+ * A single subscription per prefix is shared by all the keys. The cache is disabled whenever the pub/sub connection is
+ * closed and enabled again once the subscription is confirmed on the new one.
+ */
+final class NearCacheNotifications {
+
+  private final NearCache cache;
+  private final RedisConnection pubsub;
+  private final RedisSubscriptions subscriptions;
+  private final Charset charset;
+  private List<Object> patterns;
+
+  // increased each time the connection is closed, only a subscription to the current one enables the cache
+  private long generation;
+
+  NearCacheNotifications(NearCache cache, RedisConnection pubsub, RedisSubscriptions subscriptions, Charset charset,
+                         int db) {
+    this.cache = cache;
+    this.pubsub = pubsub;
+    this.subscriptions = subscriptions;
+    this.charset = charset;
+
+    register(db);
+
+    pubsub.clientIdHandler(id -> {
+      if (id == -1) {
+        disable();
+      } else {
+        subscribe();
+      }
+    });
+
+    // the handshake of the connection subscribes
+    pubsub.open(ar -> {
+    });
+  }
+
+  /**
+   * Follows the keys of another database, the cache is disabled until the new subscription is confirmed.
+   */
+  synchronized void select(int db) {
+    final List<Object> previous = patterns;
+
+    disable();
+
+    for (Object pattern : previous) {
+      subscriptions.unregisterPatternSubscribeHandler((String) pattern);
+    }
+    pubsub.send(new Command<>(null, RedisCommand.PUNSUBSCRIBE, previous, charset, ResponseTransform.NONE, JsonArray.class)
+      .setExpectedReplies(previous.size()));
+
+    register(db);
+    subscribe();
+  }
+
+  private synchronized void register(int db) {
+    // the channel of a key is the key with this prefix
+    final String prefix = "__keyspace@" + db + "__:";
+
+    patterns = new ArrayList<>();
+
+    if (cache.prefixes().isEmpty()) {
+      patterns.add(prefix + "*");
+    } else {
+      for (String keyPrefix : cache.prefixes()) {
+        patterns.add(prefix + escape(keyPrefix) + "*");
+      }
+    }
+
+    for (Object pattern : patterns) {
+      // replyData: pmessage, pattern, channel, event
+      subscriptions.registerPatternSubscribeHandler((String) pattern, (p, replyData) -> {
+        final String channel = replyData[2].asType(String.class, charset.name());
+        cache.invalidate(channel.substring(prefix.length()));
+      });
+    }
+  }
+
+  private synchronized void disable() {
+    generation++;
+    cache.disable();
+  }
+
+  /**
+   * The subscriptions are restored when the connection is opened, subscribing again tells when the server processed
+   * them.
+   */
+  private synchronized void subscribe() {
+    final long current = generation;
+
+    pubsub.send(new Command<>(null, RedisCommand.PSUBSCRIBE, patterns, charset, ResponseTransform.NONE, JsonArray.class)
+      .setExpectedReplies(patterns.size())
+      .handler(reply -> {
+        synchronized (this) {
+          if (reply.succeeded() && current == generation) {
+            cache.enable();
+          }
+        }
+      }));
+  }
+
+  /**
+   * Escapes the characters of a prefix that have a meaning in a glob-style pattern.
+   */
+  private static String escape(String prefix) {
+    final StringBuilder sb = new StringBuilder(prefix.length());
+
+    for (int i = 0; i < prefix.length(); i++) {
+      final char c = prefix.charAt(i);
+
+      if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+        sb.append('\\');
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a near cache up to date with client side caching: the primary connection enables CLIENT TRACKING in
+ * broadcasting mode for the prefixes of the cache, redirecting the invalidations to the pub/sub connection which is
+ * subscribed to their channel.
+ * <p>
+ * Tracking is bound to both connections, the cache is disabled whenever one of them is closed and enabled again once
+ * tracking was set up on the new ones. It stays disabled if the server does not support it (before Redis 6).
+ */
+final class NearCacheTracking {
+
+  private static final Logger log = LoggerFactory.getLogger(NearCacheTracking.class);
+
+  static final String INVALIDATE = "__redis__:invalidate";
+
+  private final NearCache cache;
+  private final RedisConnectionPool redis;
+  private final Charset charset;
+
+  // id of the pub/sub connection the invalidations are redirected to, 0 if unknown and -1 while closed
+  private long redirect = -1;
+  // increased each time tracking is set up, only the last attempt enables the cache
+  private long generation;
+  private boolean unsupported;
+
+  NearCacheTracking(NearCache cache, RedisConnectionPool redis, RedisConnection pubsub, RedisSubscriptions subscriptions,
+                    Charset charset) {
+    this.cache = cache;
+    this.redis = redis;
+    this.charset = charset;
+
+    subscriptions.registerChannelSubscribeHandler(INVALIDATE, (channel, replyData) -> invalidate(replyData[2]));
+
+    pubsub.clientIdHandler(this::redirected);
+    redis.clientIdHandler(id -> {
+      if (id == -1) {
+        disable();
+      } else {
+        track();
+      }
+    });
+
+    // opens the pub/sub connection, the subscription is restored when it reconnects
+    pubsub.send(new Command<>(null, RedisCommand.SUBSCRIBE, Collections.singletonList(INVALIDATE), charset, ResponseTransform.NONE, JsonArray.class));
+  }
+
+  private synchronized void redirected(long id) {
+    redirect = id;
+    disable();
+
+    if (id > 0) {
+      track();
+    } else if (id == 0 && !unsupported) {
+      unsupported = true;
+      log.warn("The server does not support client side caching, the near cache is disabled");
+    }
+  }
+
+  private synchronized void disable() {
+    generation++;
+    cache.disable();
+  }
+
+  private synchronized void track() {
+    if (redirect <= 0 || unsupported) {
+      return;
+    }
+
+    final long current = ++generation;
+    final List<Object> args = new ArrayList<>();
+
+    args.add("ON");
+    args.add("REDIRECT");
+    args.add(redirect);
+    args.add("BCAST");
+    for (String prefix : cache.prefixes()) {
+      args.add("PREFIX");
+      args.add(prefix);
+    }
+
+    // also opens the primary connection, its id notifies when it reconnects
+    redis.sendPinned(new Command<>(null, RedisCommand.CLIENT_TRACKING, args, charset, ResponseTransform.NONE, String.class).handler(reply -> {
+      synchronized (this) {
+        if (reply.succeeded()) {
+          if (current == generation) {
+            cache.enable();
+          }
+        } else if (reply.cause().getMessage() != null && reply.cause().getMessage().startsWith("ERR")) {
+          unsupported = true;
+          log.warn("The server does not support client side caching, the near cache is disabled: " + reply.cause().getMessage());
+        }
+      }
+    }));
+  }
+
+  private void invalidate(Reply reply) {
+    if (reply.is('*')) {
+      final Reply[] keys = (Reply[]) reply.data();
+
+      if (keys == null) {
+        // the database was flushed
+        cache.clear();
+      } else {
+        for (Reply key : keys) {
+          cache.invalidate(key.asType(String.class, charset.name()));
+        }
+      }
+    } else if (reply.is('$')) {
+      cache.invalidate(reply.asType(String.class, charset.name()));
+    }
+  }
+}
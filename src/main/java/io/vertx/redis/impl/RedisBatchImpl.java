@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.redis.RedisBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+class RedisBatchImpl implements RedisBatch {
+
+  private static final Map<String, RedisCommand> COMMANDS = new HashMap<>();
+
+  // their replies do not match the commands one to one, they would hold the connection or they change the state of
+  // whichever pooled connection the batch is sent on
+  private static final Set<RedisCommand> EXCLUDED = EnumSet.of(
+    RedisCommand.SUBSCRIBE, RedisCommand.PSUBSCRIBE, RedisCommand.UNSUBSCRIBE, RedisCommand.PUNSUBSCRIBE,
+    RedisCommand.BLPOP, RedisCommand.BRPOP, RedisCommand.BRPOPLPUSH, RedisCommand.WAIT,
+    RedisCommand.MONITOR, RedisCommand.QUIT, RedisCommand.CLIENT_REPLY,
+    RedisCommand.MULTI, RedisCommand.EXEC, RedisCommand.DISCARD, RedisCommand.WATCH, RedisCommand.UNWATCH,
+    RedisCommand.SELECT, RedisCommand.AUTH, RedisCommand.CLIENT_SETNAME, RedisCommand.CLIENT_TRACKING);
+
+  static {
+    for (RedisCommand command : RedisCommand.values()) {
+      COMMANDS.put(String.join(" ", command.getTokens()), command);
+    }
+  }
+
+  private final AbstractRedisClient client;
+  private final List<Command<?>> commands = new ArrayList<>();
+  // the names and arguments of the commands, the keys they write are invalidated when the batch is sent
+  private final List<RedisCommand> names = new ArrayList<>();
+  private final List<List<?>> arguments = new ArrayList<>();
+  private boolean sent;
+
+  RedisBatchImpl(AbstractRedisClient client) {
+    this.client = client;
+  }
+
+  @Override
+  public RedisBatch add(String command, Object... args) {
+    final RedisCommand cmd = COMMANDS.get(command.toUpperCase(Locale.ROOT));
+
+    if (cmd == null) {
+      throw new IllegalArgumentException("Unknown command: " + command);
+    }
+    if (EXCLUDED.contains(cmd)) {
+      throw new IllegalArgumentException("Command cannot be batched: " + command);
+    }
+
+    final List<?> redisArgs = Arrays.asList(args);
+
+    commands.add(new Command<>(null, cmd, redisArgs, client.charset, ResponseTransform.NONE, Object.class));
+    names.add(cmd);
+    arguments.add(redisArgs);
+    return this;
+  }
+
+  @Override
+  public int size() {
+    return commands.size();
+  }
+
+  @Override
+  public void send(Handler<AsyncResult<List<Object>>> handler) {
+    if (sent) {
+      throw new IllegalStateException("The batch was already sent");
+    }
+    sent = true;
+
+    if (commands.isEmpty()) {
+      handler.handle(Future.succeededFuture(Collections.emptyList()));
+      return;
+    }
+
+    for (int i = 0; i < names.size(); i++) {
+      if (client.nearCache != null) {
+        // the client reads its own writes without waiting for the notification of the change
+        client.nearCache.invalidate(names.get(i), arguments.get(i));
+      }
+      if (client.singleFlight != null) {
+        client.singleFlight.detach(names.get(i), arguments.get(i));
+      }
+    }
+
+    final BatchCommand batch = new BatchCommand(Vertx.currentContext(), commands, client.charset);
+    batch.handler(handler);
+
+    client.sendBatch(batch);
+  }
+}
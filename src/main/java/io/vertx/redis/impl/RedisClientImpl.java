@@ -16,15 +16,19 @@
 package io.vertx.redis.impl;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.redis.RedisBatch;
 import io.vertx.redis.RedisClient;
 import io.vertx.redis.RedisOptions;
 import io.vertx.redis.RedisTransaction;
+import io.vertx.redis.ReplyDecoder;
 import io.vertx.redis.Script;
 import io.vertx.redis.op.*;
 
@@ -42,6 +46,11 @@ public final class RedisClientImpl extends AbstractRedisClient {
     this.transaction = new RedisTransactionImpl();
   }
 
+  private RedisClientImpl(RedisClientImpl other, long commandTimeout, boolean fireAndForget) {
+    super(other, commandTimeout, fireAndForget);
+    this.transaction = new RedisTransactionImpl();
+  }
+
   /**
    * A helper method to package method parameters into JsonArray payload.
    *
@@ -52,6 +61,11 @@ public final class RedisClientImpl extends AbstractRedisClient {
    */
   @SuppressWarnings("unchecked")
   private static List<?> toPayload(Object... parameters) {
+    // most commands only have plain arguments, they are used as they are
+    if (isFlat(parameters)) {
+      return Arrays.asList(parameters);
+    }
+
     List<Object> result = new ArrayList<>(parameters.length);
 
     for (Object param : parameters) {
@@ -81,8 +95,6 @@ public final class RedisClientImpl extends AbstractRedisClient {
             result.add(e);
           }
         });
-      } else if (param instanceof Buffer) {
-        result.add(((Buffer) param).getBytes());
       } else if (param != null) {
         result.add(param);
       }
@@ -90,6 +102,31 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return result;
   }
 
+  private static boolean isFlat(Object... parameters) {
+    for (Object param : parameters) {
+      if (param == null || param instanceof JsonArray || param instanceof JsonObject || param instanceof Collection
+        || param instanceof Map || param instanceof Stream) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return a handler completing the given one later on the current context, or on the context of the client, so a
+   * near cache hit is handled like a reply
+   */
+  private Handler<AsyncResult<String>> onContext(Handler<AsyncResult<String>> handler) {
+    if (handler == null) {
+      return null;
+    }
+
+    final Context current = Vertx.currentContext();
+    final Context context = current != null ? current : redis.context();
+
+    return hit -> context.runOnContext(v -> handler.handle(hit));
+  }
+
   @Override
   public RedisClient append(String key, String value, Handler<AsyncResult<Long>> handler) {
     sendLong(APPEND, toPayload(key, value), handler);
@@ -443,6 +480,12 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return this;
   }
 
+  @Override
+  public RedisClient dumpStream(String key, Handler<AsyncResult<ReadStream<Buffer>>> handler) {
+    sendStream(DUMP, toPayload(key), handler);
+    return this;
+  }
+
   @Override
   public RedisClient echo(String message, Handler<AsyncResult<String>> handler) {
     sendString(ECHO, toPayload(message), handler);
@@ -509,13 +552,30 @@ public final class RedisClientImpl extends AbstractRedisClient {
 
   @Override
   public RedisClient get(String key, Handler<AsyncResult<String>> handler) {
-    sendString(GET, toPayload(key), handler);
+    if (nearCache != null) {
+      if (nearCache.get(key, onContext(handler))) {
+        return this;
+      }
+      handler = nearCache.fill(key, null, handler);
+    }
+
+    if (coalescer == null || !coalescer.get(this, key, handler)) {
+      sendString(GET, toPayload(key), handler);
+    }
     return this;
   }
 
   @Override
   public RedisClient getBinary(String key, Handler<AsyncResult<Buffer>> handler) {
-    send(GET, toPayload(key), Buffer.class, true, handler);
+    if (coalescer == null || !coalescer.getBinary(this, key, handler)) {
+      send(GET, toPayload(key), Buffer.class, true, handler);
+    }
+    return this;
+  }
+
+  @Override
+  public RedisClient getStream(String key, Handler<AsyncResult<ReadStream<Buffer>>> handler) {
+    sendStream(GET, toPayload(key), handler);
     return this;
   }
 
@@ -557,16 +617,35 @@ public final class RedisClientImpl extends AbstractRedisClient {
 
   @Override
   public RedisClient hget(String key, String field, Handler<AsyncResult<String>> handler) {
+    if (nearCache != null) {
+      if (nearCache.get(key, field, onContext(handler))) {
+        return this;
+      }
+      handler = nearCache.fill(key, field, handler);
+    }
+
     sendString(HGET, toPayload(key, field), handler);
     return this;
   }
 
+  @Override
+  public RedisClient hgetStream(String key, String field, Handler<AsyncResult<ReadStream<Buffer>>> handler) {
+    sendStream(HGET, toPayload(key, field), handler);
+    return this;
+  }
+
   @Override
   public RedisClient hgetall(String key, Handler<AsyncResult<JsonObject>> handler) {
     sendJsonObject(HGETALL, toPayload(key), handler);
     return this;
   }
 
+  @Override
+  public <T> RedisClient hgetallAs(String key, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler) {
+    sendDecoded(HGETALL, toPayload(key), decoder, handler);
+    return this;
+  }
+
   @Override
   public RedisClient hincrby(String key, String field, long increment, Handler<AsyncResult<Long>> handler) {
     sendLong(HINCRBY, toPayload(key, field, increment), handler);
@@ -711,6 +790,12 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return this;
   }
 
+  @Override
+  public <T> RedisClient lrangeAs(String key, long from, long to, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler) {
+    sendDecoded(LRANGE, toPayload(key, from, to), decoder, handler);
+    return this;
+  }
+
   @Override
   public RedisClient lrem(String key, long count, String value, Handler<AsyncResult<Long>> handler) {
     sendLong(LREM, toPayload(key, count, value), handler);
@@ -741,6 +826,12 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return this;
   }
 
+  @Override
+  public <T> RedisClient mgetManyAs(List<String> keys, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler) {
+    sendDecoded(MGET, toPayload(keys), decoder, handler);
+    return this;
+  }
+
   @Override
   public RedisClient migrate(String host, int port, String key, int destdb, long timeout, MigrateOptions options, Handler<AsyncResult<String>> handler) {
     sendString(MIGRATE, toPayload(host, port, key, destdb, timeout, options != null ? options.toJsonArray() : null), handler);
@@ -1018,7 +1109,9 @@ public final class RedisClientImpl extends AbstractRedisClient {
 
   @Override
   public RedisClient set(String key, String value, Handler<AsyncResult<Void>> handler) {
-    sendVoid(SET, toPayload(key, value), handler);
+    if (coalescer == null || !coalescer.set(this, key, value, handler)) {
+      sendVoid(SET, toPayload(key, value), handler);
+    }
     return this;
   }
 
@@ -1213,6 +1306,38 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return transaction;
   }
 
+  @Override
+  public RedisBatch batch() {
+    return new RedisBatchImpl(this);
+  }
+
+  @Override
+  public RedisClient connect(Handler<AsyncResult<Void>> handler) {
+    redis.connect(handler);
+    return this;
+  }
+
+  @Override
+  public RedisClient withTimeout(long timeout) {
+    return new RedisClientImpl(this, timeout, fireAndForget);
+  }
+
+  @Override
+  public RedisClient fireAndForget() {
+    return new RedisClientImpl(this, commandTimeout, true);
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return redis.writeQueueFull();
+  }
+
+  @Override
+  public RedisClient drainHandler(Handler<Void> handler) {
+    redis.drainHandler(handler);
+    return this;
+  }
+
 
   @Override
   public RedisClient ttl(String key, Handler<AsyncResult<Long>> handler) {
@@ -1303,6 +1428,12 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return this;
   }
 
+  @Override
+  public <T> RedisClient zrangeWithOptionsAs(String key, long start, long stop, RangeOptions options, ReplyDecoder<T> decoder, Handler<AsyncResult<T>> handler) {
+    sendDecoded(ZRANGE, toPayload(key, start, stop, options != null ? options.toJsonArray() : null), decoder, handler);
+    return this;
+  }
+
   @Override
   public RedisClient zrangebylex(String key, String min, String max, LimitOptions options, Handler<AsyncResult<JsonArray>> handler) {
     sendJsonArray(ZRANGEBYLEX, toPayload(key, min, max, options != null ? options.toJsonArray() : null), handler);
@@ -1418,6 +1549,26 @@ public final class RedisClientImpl extends AbstractRedisClient {
     return this;
   }
 
+  @Override
+  public ReadStream<String> scanStream(ScanOptions options) {
+    return new ScanReadStream<>(options, 1, entry -> (String) entry.get(0), (cursor, handler) -> scan(cursor, options, handler));
+  }
+
+  @Override
+  public ReadStream<String> sscanStream(String key, ScanOptions options) {
+    return new ScanReadStream<>(options, 1, entry -> (String) entry.get(0), (cursor, handler) -> sscan(key, cursor, options, handler));
+  }
+
+  @Override
+  public ReadStream<JsonArray> hscanStream(String key, ScanOptions options) {
+    return new ScanReadStream<>(options, 2, entry -> new JsonArray(new ArrayList<>(entry)), (cursor, handler) -> hscan(key, cursor, options, handler));
+  }
+
+  @Override
+  public ReadStream<JsonArray> zscanStream(String key, ScanOptions options) {
+    return new ScanReadStream<>(options, 2, entry -> new JsonArray(new ArrayList<>(entry)), (cursor, handler) -> zscan(key, cursor, options, handler));
+  }
+
   @Override
   public RedisClient geoadd(String key, double longitude, double latitude, String member, Handler<AsyncResult<Long>> handler) {
     sendLong(GEOADD, toPayload(key, longitude, latitude, member), handler);
@@ -1534,6 +1685,20 @@ public final class RedisClientImpl extends AbstractRedisClient {
 
   public class RedisTransactionImpl implements RedisTransaction {
 
+    // the commands of a transaction share the state of the connection, they are all sent to the primary one
+
+    private void sendString(final RedisCommand command, final List<?> args, final Handler<AsyncResult<String>> handler) {
+      send(command, args, String.class, false, handler);
+    }
+
+    private void sendJsonArray(final RedisCommand command, final List<?> args, final Handler<AsyncResult<JsonArray>> handler) {
+      send(command, args, JsonArray.class, false, handler);
+    }
+
+    private <T> void send(final RedisCommand command, final List<?> args, final Class<T> returnType, final boolean binary, final Handler<AsyncResult<T>> handler) {
+      RedisClientImpl.this.send(command, args, returnType, binary, true, handler);
+    }
+
     @Override
     public void close(Handler<AsyncResult<Void>> handler) {
       RedisClientImpl.this.close(handler);
@@ -215,15 +215,23 @@ public enum RedisCommand implements AbstractCommand {
   CLIENT_REPLY("CLIENT REPLY"),
   HSTRLEN("HSTRLEN"),
   SCRIPT_DEBUG("SCRIPT DEBUG"),
-  TOUCH("TOUCH");
+  TOUCH("TOUCH"),
+  CLIENT_ID("CLIENT ID"),
+  CLIENT_TRACKING("CLIENT TRACKING");
 
   private final String[] tokens;
+  private final byte[] bytes;
 
   RedisCommand(String command) {
     this.tokens = command.split(" ");
+    this.bytes = Command.encodeTokens(tokens);
   }
 
   public String[] getTokens() {
     return tokens;
   }
+
+  public byte[] getBytes() {
+    return bytes;
+  }
 }
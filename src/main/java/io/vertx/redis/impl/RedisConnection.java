@@ -15,7 +15,10 @@
  */
 package io.vertx.redis.impl;
 
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.*;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.impl.VertxInternal;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -23,10 +26,15 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.core.net.NetClient;
 import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.SocketAddress;
 import io.vertx.redis.RedisOptions;
+import io.vertx.redis.ReplyDecoder;
+import io.vertx.redis.op.ClientReplyOptions;
 
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -36,6 +44,10 @@ import java.util.concurrent.atomic.AtomicReference;
 class RedisConnection {
 
   private static final Logger log = LoggerFactory.getLogger(RedisConnection.class);
+
+  private static final Buffer REPLY_ON = replyMode(ClientReplyOptions.ON);
+  private static final Buffer REPLY_OFF = replyMode(ClientReplyOptions.OFF);
+
   private final Vertx vertx;
   private final Context context;
   /**
@@ -50,9 +62,11 @@ class RedisConnection {
    * For this reason we must **ALWAYS** synchronize the access to the queues and writes to the socket.
    */
   // pending: commands that have not yet been sent to the server
-  private final Queue<Command<?>> pending = new LinkedList<>();
+  private final CommandQueue pending = new CommandQueue();
   // waiting: commands that have been sent but not answered
-  private final Queue<Command<?>> waiting = new LinkedList<>();
+  private final CommandQueue waiting = new CommandQueue();
+  // number of entries in both queues, read by the pool from any thread
+  private final AtomicInteger load = new AtomicInteger();
 
   private final ReplyParser replyParser;
   private final RedisSubscriptions subscriptions;
@@ -62,14 +76,44 @@ class RedisConnection {
   private final AtomicReference<State> state = new AtomicReference<>(State.DISCONNECTED);
   // attempt to reconnect on error, by default true
   private volatile boolean reconnect = true;
+  // consecutive failed attempts to connect
+  private int attempts;
+  // commands fail immediately until a probe succeeds
+  private volatile boolean circuitOpen;
   private volatile NetSocket netSocket;
+  // commands written during the current tick when write coalescing is enabled, null when nothing is gathered
+  private CompositeByteBuf outbound;
+  // deadlines of the commands waiting for a reply
+  private final TimeoutWheel timeouts;
+  // why the connection was closed on purpose, null when it was closed by the server or the user
+  private String closeReason;
+  // called once the handshake of the connection being opened completes
+  private final List<Handler<AsyncResult<Void>>> openHandlers = new ArrayList<>();
+  // whether the server supports CLIENT REPLY (Redis 3.2), null until the first command that needs it
+  private Boolean replyModes;
+  // commands are held as pending while the support of CLIENT REPLY is checked
+  private boolean probing;
+  // the reply mode of the server for this connection
+  private boolean repliesOff;
+  private boolean skipNext;
+  // the replies were turned off for fire and forget commands, they are turned on for the next regular command
+  private boolean autoOff;
+  // notified of the id of the connection once it is opened and of -1 once it is closed
+  private volatile Handler<Long> clientIdHandler;
   /**
    * Create a RedisConnection.
    */
   public RedisConnection(Vertx vertx, RedisOptions config, RedisSubscriptions subscriptions) {
+    this(vertx, config, subscriptions, Vertx.currentContext());
+  }
+
+  /**
+   * Create a RedisConnection bound to the given context.
+   */
+  RedisConnection(Vertx vertx, RedisOptions config, RedisSubscriptions subscriptions, Context context) {
 
     // Make sure we have an event loop context for serializability of the commands
-    Context ctx = Vertx.currentContext();
+    Context ctx = context;
     if (ctx == null) {
       ctx = vertx.getOrCreateContext();
     } else if (!ctx.isEventLoopContext()) {
@@ -82,6 +126,9 @@ class RedisConnection {
     this.config = config;
 
     this.subscriptions = subscriptions;
+    this.timeouts = new TimeoutWheel(vertx, v -> recycle());
+
+    final int compactionThreshold = config.getReadBufferCompactionThreshold();
 
     if (subscriptions != null) {
       this.replyParser = new ReplyParser(reply -> {
@@ -110,11 +157,15 @@ class RedisConnection {
 
         // fallback to normal handler
         handleReply(reply);
-      });
+      }, compactionThreshold);
 
     } else {
-      this.replyParser = new ReplyParser(this::handleReply);
+      this.replyParser = new ReplyParser(this::handleReply, compactionThreshold)
+        // messages are never decoded, only plain connections can have decoders
+        .decoderProvider(this::decoderFor);
     }
+
+    this.replyParser.bulkStreamProvider(this::streamBulk);
   }
 
   private boolean useSentinel() {
@@ -127,39 +178,55 @@ class RedisConnection {
     }
   }
 
-  private void connect(String host, int port, boolean checkMaster) {
+  private void connect(SocketAddress address, boolean checkMaster) {
     replyParser.reset();
+    // a new connection replies to every command
+    probing = false;
+    repliesOff = false;
+    skipNext = false;
+    autoOff = false;
+
+    if (address.path() != null && !vertx.isNativeTransportEnabled()) {
+      connectFailed(new IllegalStateException("Unix domain sockets require the native transport"));
+      return;
+    }
+
 // create a netClient for the connection
     final NetClient client = vertx.createNetClient(config);
-    client.connect(port, host, asyncResult -> {
+    client.connect(address, asyncResult -> {
       if (asyncResult.failed()) {
-        if (state.compareAndSet(State.CONNECTING, State.ERROR)) {
-          // clean up any waiting command
-          clearQueue(waiting, asyncResult.cause());
-          // clean up any pending command
-          clearQueue(pending, asyncResult.cause());
-
-          state.set(State.DISCONNECTED);
-          // Should we retry?
-          if (reconnect) {
-            vertx.setTimer(config.getReconnectInterval(), v0 -> connect());
-          }
-        }
+        connectFailed(asyncResult.cause());
       } else {
         netSocket = asyncResult.result()
-          .handler(replyParser)
+          .handler(this::handleData)
           .closeHandler(v2 -> {
+            final String message = closeReason != null ? closeReason : "Connection closed";
+            closeReason = null;
+
             state.set(State.ERROR);
-            // clean up any waiting command
-            clearQueue(waiting, "Connection closed");
+            // drop the commands that were not flushed, they are failed with the waiting ones
+            outbound = null;
+            // fail a streamed reply that was not complete
+            replyParser.reset();
+            timeouts.clear();
             // clean up any pending command
-            clearQueue(pending, "Connection closed");
+            clearQueue(pending, message);
+            // clean up any waiting command, the handlers may send new commands which are kept as pending
+            clearQueue(waiting, message);
+            opened(Future.failedFuture(message));
 
             state.set(State.DISCONNECTED);
             client.close();
+            if (clientIdHandler != null) {
+              clientIdHandler.handle(-1L);
+            }
             // was this close intentional?
             if (reconnect) {
-              vertx.setTimer(config.getReconnectInterval(), v0 -> connect());
+              if (pending.isEmpty()) {
+                scheduleReconnect();
+              } else {
+                connect();
+              }
             }
           })
           .exceptionHandler(e ->
@@ -168,16 +235,28 @@ class RedisConnection {
         // clean up any waiting command
         clearQueue(waiting, "Connection lost");
 
-        // handle the connection handshake
-        doAuth();
-        // check if the Redis instance is master
-        if (checkMaster) {
-          doCheckMaster();
-        }
+        // handle the connection handshake and check if the Redis instance is master
+        doHandshake(checkMaster);
       }
     });
   }
 
+  private void connectFailed(Throwable cause) {
+    if (state.compareAndSet(State.CONNECTING, State.ERROR)) {
+      // clean up any waiting command
+      clearQueue(waiting, cause);
+      // clean up any pending command
+      clearQueue(pending, cause);
+      opened(Future.failedFuture(cause));
+
+      state.set(State.DISCONNECTED);
+      // Should we retry?
+      if (reconnect) {
+        scheduleReconnect();
+      }
+    }
+  }
+
   private void connect() {
 
     if (state.compareAndSet(State.DISCONNECTED, State.CONNECTING)) {
@@ -187,19 +266,24 @@ class RedisConnection {
           resolver.getMasterAddressByName(jsonObjectAsyncResult -> {
             if (jsonObjectAsyncResult.succeeded()) {
               JsonObject masterAddress = jsonObjectAsyncResult.result();
-              connect(masterAddress.getString("host"), masterAddress.getInteger("port"), true);
+              connect(SocketAddress.inetSocketAddress(masterAddress.getInteger("port"), masterAddress.getString("host")), true);
             } else {
               // clean up any waiting command
               clearQueue(waiting, jsonObjectAsyncResult.cause());
               // clean up any pending command
               clearQueue(pending, jsonObjectAsyncResult.cause());
+              opened(Future.failedFuture(jsonObjectAsyncResult.cause()));
 
               state.set(State.DISCONNECTED);
             }
             resolver.close();
           });
         } else {
-          connect(config.getHost(), config.getPort(), false);
+          if (config.getDomainSocketAddress() != null) {
+            connect(SocketAddress.domainSocketAddress(config.getDomainSocketAddress()), false);
+          } else {
+            connect(SocketAddress.inetSocketAddress(config.getPort(), config.getHost()), false);
+          }
         }
       });
     }
@@ -223,9 +307,9 @@ class RedisConnection {
             clearQueue(pending, "Connection closed");
 
             netSocket.close();
-
-            closeHandler.handle(Future.succeededFuture());
           }
+          // the connection may also have been closed before the reply to QUIT
+          closeHandler.handle(Future.succeededFuture());
         });
 
         send(cmd);
@@ -239,6 +323,26 @@ class RedisConnection {
     }
   }
 
+  /**
+   * Closes the connection without waiting for the replies of the commands already sent, they are failed. Used for
+   * connections that may be blocked by a command for a long time.
+   */
+  void close(Handler<AsyncResult<Void>> closeHandler) {
+    reconnect = false;
+
+    runOnContext(v -> {
+      if (state.get() == State.CONNECTED) {
+        // the close handler of the socket fails the commands
+        netSocket.close();
+        closeHandler.handle(Future.succeededFuture());
+      } else {
+        // the commands were not sent yet
+        clearQueue(pending, "Connection closed");
+        disconnect(closeHandler);
+      }
+    });
+  }
+
   /**
    * Sends a message to redis, if the connection is not active then the command is queued for processing and the
    * procedure to start a connection is started.
@@ -249,6 +353,12 @@ class RedisConnection {
    */
   void send(final Command<?> command) {
 
+    // the server was unreachable for a while, do not queue commands that would wait for it
+    if (circuitOpen) {
+      command.handle(Future.failedFuture("Connection unavailable"));
+      return;
+    }
+
     // start the handshake if not connected
     if (state.get() == State.DISCONNECTED) {
       connect();
@@ -264,48 +374,288 @@ class RedisConnection {
         case ERROR:
         case DISCONNECTED:
           pending.add(command);
+          load.incrementAndGet();
           break;
       }
     });
   }
 
+  /**
+   * Opens the connection if needed.
+   *
+   * @param handler called once the handshake completed, or failed
+   */
+  void open(Handler<AsyncResult<Void>> handler) {
+    if (state.get() == State.DISCONNECTED) {
+      connect();
+    }
+
+    runOnContext(v -> {
+      if (state.get() == State.CONNECTED) {
+        handler.handle(Future.succeededFuture());
+      } else {
+        openHandlers.add(handler);
+      }
+    });
+  }
+
+  /**
+   * Set a handler notified of the id of the connection (CLIENT ID) once it is opened, e.g.: to redirect the
+   * notifications of client side caching to it, 0 if the server has no CLIENT ID, and of -1 once it is closed.
+   */
+  void clientIdHandler(Handler<Long> handler) {
+    this.clientIdHandler = handler;
+  }
+
+  private void opened(AsyncResult<Void> result) {
+    if (!openHandlers.isEmpty()) {
+      final List<Handler<AsyncResult<Void>>> handlers = new ArrayList<>(openHandlers);
+      openHandlers.clear();
+
+      for (Handler<AsyncResult<Void>> handler : handlers) {
+        handler.handle(result);
+      }
+    }
+  }
+
+  /**
+   * @return the number of commands queued or waiting for a reply
+   */
+  int load() {
+    return load.get();
+  }
+
+  /**
+   * @return the context the connection is bound to
+   */
+  Context context() {
+    return context;
+  }
+
   /**
    * Write the command to the socket. The order read must match the order written, vertx
    * guarantees that this is only called from a single thread.
+   * <p>
+   * The reply mode set with CLIENT REPLY is tracked so that only the commands the server answers wait for a reply,
+   * the others are completed once written. A run of fire and forget commands is sent with the replies turned off.
    */
   private void write(Command<?> command) {
-    for (int i = 0; i < command.getExpectedReplies(); ++i) {
-      waiting.add(command);
+    if (probing) {
+      pending.add(command);
+      load.incrementAndGet();
+      return;
+    }
+
+    final ClientReplyOptions mode = command.clientReply();
+
+    if (mode != null || command.isFireAndForget()) {
+      if (replyModes == null) {
+        probeReplyModes();
+        pending.add(command);
+        load.incrementAndGet();
+        return;
+      }
+
+      if (replyModes && command.isFireAndForget() && !repliesOff && !skipNext) {
+        write(new Command<>(context, REPLY_OFF, Charset.forName(config.getEncoding()), String.class).clientReply(ClientReplyOptions.OFF));
+        autoOff = true;
+      }
+    } else if (autoOff) {
+      // the following command needs its reply, the reply to CLIENT REPLY ON is ignored
+      write(new Command<>(context, REPLY_ON, Charset.forName(config.getEncoding()), String.class).clientReply(ClientReplyOptions.ON));
+    }
+
+    // whether the server answers this command
+    boolean replied = !repliesOff && !skipNext;
+    skipNext = false;
+
+    if (mode != null && replyModes) {
+      autoOff = false;
+
+      switch (mode) {
+        case ON:
+          repliesOff = false;
+          replied = true;
+          break;
+        case OFF:
+          repliesOff = true;
+          replied = false;
+          break;
+        case SKIP:
+          // skipping the next reply has no effect while the replies are off
+          skipNext = !repliesOff;
+          replied = false;
+          break;
+      }
+    }
+
+    if (replied && command.getExpectedReplies() > 0) {
+      waiting.add(command, command.getExpectedReplies());
+      load.addAndGet(command.getExpectedReplies());
+
+      if (command.timeout() > 0) {
+        timeouts.schedule(command, command.timeout());
+      }
+    }
+
+    write(command.buffer());
+
+    if (command.isFireAndForget()) {
+      command.handle(Future.succeededFuture());
+      // a server without CLIENT REPLY still answers, the reply is ignored
+      command.handler(null);
+    } else if (!replied && command.getExpectedReplies() > 0) {
+      command.handle(Future.succeededFuture());
+    }
+  }
+
+  private void write(Buffer buffer) {
+    if (!config.isWriteCoalescing()) {
+      netSocket.write(buffer);
+      return;
+    }
+
+    // gather the commands of this tick and write them at once when the tick ends
+    if (outbound == null) {
+      outbound = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+      context.runOnContext(v -> flush());
+    }
+
+    outbound.addComponent(true, buffer.getByteBuf());
+
+    if (outbound.readableBytes() >= config.getWriteCoalescingThreshold()) {
+      flush();
     }
-    command.writeTo(netSocket);
   }
 
   /**
-   * Once a socket connection is established one needs to authenticate if there is a password
+   * Checks whether the server supports CLIENT REPLY with a CLIENT REPLY ON that does not change the reply mode, the
+   * commands are held until it is answered so they are written in order.
    */
-  private void doAuth() {
+  private void probeReplyModes() {
+    final Command<String> probe = new Command<>(context, REPLY_ON, Charset.forName(config.getEncoding()), String.class);
+
+    probe.handler(reply -> {
+      probing = false;
+      // the probe is also failed when the connection is closed, the support is unknown then
+      if (state.get() == State.CONNECTED) {
+        replyModes = reply.succeeded();
+        if (!replyModes) {
+          log.warn("The server does not support CLIENT REPLY, fire and forget commands are sent with their reply");
+        }
+        writePending();
+      }
+    });
+
+    waiting.add(probe, 1);
+    load.incrementAndGet();
+    write(probe.buffer());
+    probing = true;
+  }
+
+  /**
+   * Writes the commands that were queued, in order.
+   */
+  private void writePending() {
+    Command<?> command;
+
+    while (!probing && (command = pending.peek()) != null) {
+      if (replyModes == null && (command.clientReply() != null || command.isFireAndForget())) {
+        // the command stays first in the queue
+        probeReplyModes();
+        break;
+      }
+      pending.poll();
+      load.decrementAndGet();
+      write(command);
+    }
+  }
+
+  private static Buffer replyMode(ClientReplyOptions mode) {
+    final Command<Void> command = new Command<>(null, RedisCommand.CLIENT_REPLY, Collections.singletonList(mode.name()), Charset.forName("UTF-8"), ResponseTransform.NONE, Void.class);
+    // shared by all the connections, writing it must not release it
+    return Buffer.buffer(Unpooled.unreleasableBuffer(command.buffer().getByteBuf()));
+  }
+
+  /**
+   * Writes the gathered commands in a single write.
+   */
+  private void flush() {
+    if (outbound != null) {
+      final CompositeByteBuf buffer = outbound;
+      outbound = null;
+      netSocket.write(Buffer.buffer(buffer));
+    }
+  }
+
+  /**
+   * Pipelines the handshake: AUTH, SELECT and the INFO of the master check are written at once instead of waiting
+   * for each reply, the pending commands are sent once the last reply needed was received. The first failure closes
+   * the connection, the replies of the commands written after it are ignored.
+   */
+  private void doHandshake(boolean checkMaster) {
+    final Charset encoding = Charset.forName(config.getEncoding());
+    final boolean[] failed = {false};
+    Command<String> last = null;
+
     if (config.getAuth() != null) {
-      // we need to authenticate first
       final List<Object> args = new ArrayList<>();
       args.add(config.getAuth());
 
-      Command<String> authCmd = new Command<>(context, RedisCommand.AUTH, args, Charset.forName(config.getEncoding()), ResponseTransform.NONE, String.class).handler(auth -> {
+      last = new Command<>(context, RedisCommand.AUTH, args, encoding, ResponseTransform.NONE, String.class);
+      write(last.handler(auth -> {
         if (auth.failed()) {
-          // clean up any waiting command
-          clearQueue(pending, auth.cause());
-          netSocket.close();
-        } else {
-          // auth success, proceed with select
-          doSelect();
+          handshakeFailed(failed, auth.cause());
         }
-      });
+      }));
+    }
 
-      // write to the socket in the netSocket context
-      // queue it
-      write(authCmd);
+    if (config.getSelect() != null) {
+      final List<Object> args = new ArrayList<>();
+      args.add(config.getSelect());
+
+      last = new Command<>(context, RedisCommand.SELECT, args, encoding, ResponseTransform.NONE, String.class);
+      write(last.handler(select -> {
+        if (select.failed()) {
+          handshakeFailed(failed, select.cause());
+        }
+      }));
+    }
+
+    final Handler<Long> idHandler = clientIdHandler;
+
+    if (idHandler != null) {
+      // requested before the subscriptions are restored, a subscribed connection only accepts pub/sub commands
+      write(new Command<>(context, RedisCommand.CLIENT_ID, null, encoding, ResponseTransform.NONE, Long.class).handler(id ->
+        idHandler.handle(id.succeeded() ? id.result() : 0L)));
+    }
+
+    if (last == null) {
+      // nothing to wait for, proceed with resend of pending messages/resubscribe pub/sub
+      restoreState();
     } else {
-      // no auth, proceed with select
-      doSelect();
+      final Handler<AsyncResult<String>> handler = last.handler();
+
+      last.handler(reply -> {
+        handler.handle(reply);
+        if (reply.succeeded() && !failed[0]) {
+          // the handshake succeeded, proceed with resend of pending messages/resubscribe pub/sub
+          restoreState();
+        }
+      });
+    }
+
+    if (checkMaster) {
+      doCheckMaster();
+    }
+  }
+
+  private void handshakeFailed(boolean[] failed, Throwable cause) {
+    if (!failed[0]) {
+      failed[0] = true;
+      // clean up any waiting command
+      clearQueue(pending, cause);
+      netSocket.close();
     }
   }
 
@@ -331,41 +681,75 @@ class RedisConnection {
     write(infoCommand);
   }
 
-  private void doSelect() {
-    // optionally there could be a select command
-    if (config.getSelect() != null) {
+  /**
+   * Closes the connection because a reply is overdue: the replies are matched to the commands by their order, the
+   * late one cannot be skipped. All the commands waiting for a reply are failed and the connection is opened again.
+   */
+  private void recycle() {
+    if (state.get() == State.CONNECTED) {
+      log.warn("Timeout waiting for a reply, recycling the connection");
+      closeReason = "Timeout waiting for a reply";
+      netSocket.close();
+    }
+  }
 
-      final List<Object> args = new ArrayList<>();
-      args.add(config.getSelect());
+  /**
+   * Attempts to reconnect later, the interval grows with the number of failed attempts when a maximum interval is
+   * configured.
+   */
+  private void scheduleReconnect() {
+    attempts++;
 
-      Command<String> selectCmd = new Command<>(context, RedisCommand.SELECT, args, Charset.forName(config.getEncoding()), ResponseTransform.NONE, String.class).handler(select -> {
-        if (select.failed()) {
-          // clean up any waiting command
-          clearQueue(pending, select.cause());
+    final int threshold = config.getCircuitBreakerThreshold();
 
-          netSocket.close();
-        } else {
-          // select success, proceed with resendof pending messages/resubscribe pub/sub
-          restoreState();
-        }
-      });
+    if (threshold > 0 && attempts >= threshold && !circuitOpen) {
+      log.warn("Could not connect after " + attempts + " attempts, failing the commands until the server is back");
+      circuitOpen = true;
+      clearQueue(pending, "Connection unavailable");
+    }
 
-      // write to the socket in the netSocket context
-      // queue it
-      write(selectCmd);
-    } else {
-      // no select, proceed with resendof pending messages/resubscribe pub/sub
-      restoreState();
+    vertx.setTimer(reconnectDelay(), v0 -> {
+      // unless the user disconnected in the meantime
+      if (reconnect) {
+        connect();
+      }
+    });
+  }
+
+  private long reconnectDelay() {
+    final long interval = Math.max(1, config.getReconnectInterval());
+    final long max = config.getMaxReconnectInterval();
+
+    if (max <= interval) {
+      return interval;
     }
+
+    // doubles after every attempt, the shift is bounded so that it cannot overflow
+    final long delay = Math.min(max, interval << Math.min(attempts - 1, 30));
+    // half of it is random so that the clients of a failed server do not reconnect all at once
+    return Math.max(1, delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
   }
 
   private void restoreState() {
-    Command<?> command;
     if (state.compareAndSet(State.CONNECTING, State.CONNECTED)) {
-      // we are connected so clean up the pending queue
-      while ((command = pending.poll()) != null) {
-        write(command);
+      if (circuitOpen) {
+        // accept commands again once the server answers
+        write(new Command<>(context, RedisCommand.PING, null, Charset.forName(config.getEncoding()), ResponseTransform.NONE, String.class).handler(ping -> {
+          if (ping.succeeded()) {
+            log.info("Connection is back after " + attempts + " failed attempts");
+            attempts = 0;
+            circuitOpen = false;
+          } else if (state.get() == State.CONNECTED) {
+            // e.g.: -LOADING while the server restarts, the connection is opened and probed again later
+            closeReason = "Connection unavailable";
+            netSocket.close();
+          }
+        }));
+      } else {
+        attempts = 0;
       }
+      // we are connected so clean up the pending queue
+      writePending();
       // restore the pub/sub subscriptions
       if (subscriptions != null) {
         for (String channel : subscriptions.channelNames()) {
@@ -381,14 +765,70 @@ class RedisConnection {
           write(new Command<>(context, RedisCommand.PSUBSCRIBE, args, Charset.forName(config.getEncoding()), ResponseTransform.NONE, JsonArray.class));
         }
       }
+
+      opened(Future.succeededFuture());
     }
   }
 
+  private void handleData(Buffer buffer) {
+    replyParser.handle(buffer);
+    // stop reading while a streamed bulk reply is paused, it resumes the socket once it flows again
+    if (replyParser.isStalled()) {
+      netSocket.pause();
+    }
+  }
+
+  /**
+   * Streams a bulk reply when the command waiting for it asked for a stream and the reply is large enough, smaller
+   * replies are buffered and handed over as a single chunk by {@link #handleReply(Reply)}.
+   */
+  @SuppressWarnings("unchecked")
+  private BulkReadStream streamBulk(int length) {
+    final Command cmd = waiting.peek();
+
+    if (cmd == null || cmd.responseTransform() != ResponseTransform.STREAM || length < config.getStreamingThreshold()) {
+      return null;
+    }
+
+    waiting.reply();
+    load.decrementAndGet();
+
+    // always deferred, the stream can start flowing while the parser is still handing it out
+    final BulkReadStream stream = new BulkReadStream(cmd.context(), v -> context.runOnContext(v1 -> {
+      netSocket.resume();
+      handleData(null);
+    }));
+
+    cmd.handle(Future.succeededFuture(stream));
+    return stream;
+  }
+
+  /**
+   * Returns the decoder of the command the next reply belongs to.
+   */
+  private ReplyDecoder<?> decoderFor() {
+    final Command<?> cmd = waiting.peek();
+    return cmd == null ? null : cmd.decoder();
+  }
+
   @SuppressWarnings("unchecked")
   private void handleReply(Reply reply) {
-    final Command cmd = waiting.poll();
+    final Command cmd = waiting.reply();
 
     if (cmd != null) {
+      load.decrementAndGet();
+
+      if (cmd instanceof BatchCommand) {
+        ((BatchCommand) cmd).reply(reply);
+        return;
+      }
+
+      // the reply was already decoded by the parser
+      if (cmd.decoder() != null && reply.type() != '-') {
+        cmd.handle(Future.succeededFuture(reply.data()));
+        return;
+      }
+
       switch (reply.type()) {
         case '-': // Error
           cmd.handle(Future.failedFuture(reply.asType(String.class)));
@@ -408,6 +848,10 @@ class RedisConnection {
             case ARRAY:
               cmd.handle(Future.succeededFuture(new JsonArray().add(reply.asType(String.class, cmd.encoding()))));
               break;
+            case STREAM:
+              final Buffer payload = reply.asType(Buffer.class);
+              cmd.handle(Future.succeededFuture(payload == null ? null : BulkReadStream.of(cmd.context(), payload)));
+              break;
             case INFO:
               String info = reply.asType(String.class, cmd.encoding());
 
@@ -477,28 +921,28 @@ class RedisConnection {
   }
 
   private void runOnContext(Handler<Void> handler) {
-    // Use only if it's the same context and we are on the event loop thread
-    if (Vertx.currentContext() == context && Context.isOnEventLoopThread()) {
-      handler.handle(null);
-    } else {
-      context.runOnContext(handler);
-    }
+    // at once when we are on the event loop thread of the connection
+    Contexts.run(context, handler);
   }
 
-  private void clearQueue(Queue<Command<?>> q, String message) {
+  private void clearQueue(CommandQueue q, String message) {
     Command<?> cmd;
 
-    // clean up any pending command
-    while ((cmd = q.poll()) != null) {
+    // clean up any pending command, the ones sent again by the handlers are kept
+    for (int n = q.size(); n > 0; n--) {
+      load.addAndGet(-q.remaining());
+      cmd = q.poll();
       cmd.handle(Future.failedFuture(message));
     }
   }
 
-  private void clearQueue(Queue<Command<?>> q, Throwable cause) {
+  private void clearQueue(CommandQueue q, Throwable cause) {
     Command<?> cmd;
 
-    // clean up any pending command
-    while ((cmd = q.poll()) != null) {
+    // clean up any pending command, the ones sent again by the handlers are kept
+    for (int n = q.size(); n > 0; n--) {
+      load.addAndGet(-q.remaining());
+      cmd = q.poll();
       cmd.handle(Future.failedFuture(cause));
     }
   }
@@ -0,0 +1,537 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.netty.channel.EventLoop;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Closeable;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextImpl;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.core.impl.EventLoopContext;
+import io.vertx.core.impl.VertxInternal;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.redis.OverflowPolicy;
+import io.vertx.redis.PoolSelection;
+import io.vertx.redis.RedisOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Spreads the commands over several pipelined connections.
+ * <p>
+ * The first connection is the primary one: commands that depend on the state of the connection (transactions,
+ * CLIENT SETNAME, ...) are always sent to it so that they see each other, SELECT is sent to every connection. The
+ * other connections are bound to their own event loop so that the I/O of the pool is not limited to a single thread,
+ * the replies are still handled on the context of the caller.
+ * <p>
+ * With event loop affinity a command sent from an event loop context uses a connection bound to that same event loop
+ * instead, so that it is written and its reply handled without handing it over to another thread. The connection is
+ * shared by all the contexts of the event loop, it is opened on the first command and closed with the last of these
+ * contexts. At most as many event loops as the size of the pool get such a connection, the commands sent from the
+ * other ones use the pool.
+ * <p>
+ * Blocking commands use a separate set of connections that is created lazily: a command goes to a connection that is
+ * not blocked, a new one is opened when they all are, up to the maximum.
+ * <p>
+ * The number of commands sent and not answered yet can be limited, past the limit the commands are failed or queued
+ * according to the overflow policy, the queue is reported as full until it drains to half the limit.
+ */
+class RedisConnectionPool {
+
+  private static final Logger log = LoggerFactory.getLogger(RedisConnectionPool.class);
+
+  private final RedisConnection[] connections;
+  private final PoolSelection selection;
+  private final AtomicInteger next = new AtomicInteger();
+  // connections bound to the event loop of their callers, null when there is no affinity
+  private final ConcurrentMap<EventLoop, Affine> affine;
+
+  // connections of the blocking commands and the number of such commands not answered yet on each of them
+  private final List<RedisConnection> blocking = new ArrayList<>();
+  private final List<AtomicInteger> blocked = new ArrayList<>();
+  private final int maxBlockingSize;
+
+  // commands sent and not answered yet, only counted when there is a limit
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicBoolean full = new AtomicBoolean();
+  private final int maxInFlight;
+  private final OverflowPolicy overflow;
+  private volatile Handler<Void> drainHandler;
+  private volatile Context drainContext;
+
+  private final Vertx vertx;
+  private final RedisOptions config;
+
+  RedisConnectionPool(Vertx vertx, RedisOptions config) {
+    final int size = Math.max(1, config.getMaxPoolSize());
+
+    this.vertx = vertx;
+    this.config = config;
+    this.connections = new RedisConnection[size];
+    this.selection = config.getPoolSelection();
+    this.maxBlockingSize = Math.max(1, config.getMaxBlockingPoolSize());
+    this.maxInFlight = config.getMaxInFlightCommands();
+    this.overflow = config.getOverflowPolicy();
+
+    connections[0] = new RedisConnection(vertx, config, null);
+
+    if (config.isEventLoopAffinity()) {
+      affine = new ConcurrentHashMap<>();
+      // the primary connection already serves the event loop of the context that created the client
+      final EventLoop loop = ((ContextInternal) connections[0].context()).nettyEventLoop();
+      affine.put(loop, new Affine(loop, connections[0], true));
+    } else {
+      affine = null;
+    }
+
+    for (int i = 1; i < size; i++) {
+      connections[i] = new RedisConnection(vertx, config, null, createContext());
+    }
+
+    if (config.isEagerConnect()) {
+      connect(ar -> {
+        if (ar.failed()) {
+          log.warn("Could not open the connections eagerly: " + ar.cause().getMessage());
+        }
+      });
+    }
+  }
+
+  /**
+   * Opens all the connections of the pool, the connections of the blocking commands and of the event loops are still
+   * opened when they are first used.
+   *
+   * @param handler called once all the handshakes completed, with the first failure if any
+   */
+  void connect(Handler<AsyncResult<Void>> handler) {
+    final AtomicInteger cnt = new AtomicInteger();
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    for (RedisConnection connection : connections) {
+      connection.open(ar -> {
+        if (ar.failed()) {
+          failure.compareAndSet(null, ar.cause());
+        }
+        if (cnt.incrementAndGet() == connections.length) {
+          handler.handle(failure.get() == null ? Future.succeededFuture() : Future.failedFuture(failure.get()));
+        }
+      });
+    }
+  }
+
+  /**
+   * Sends a command to one of the connections.
+   */
+  void send(Command<?> command) {
+    if ((command = admit(command)) == null) {
+      return;
+    }
+
+    if (affine != null) {
+      final Context ctx = Vertx.currentContext();
+
+      // a context that cannot tell when it is closed would keep its connection open
+      if (ctx instanceof ContextImpl && ctx.isEventLoopContext()) {
+        final RedisConnection connection = affine((ContextImpl) ctx);
+
+        if (connection != null) {
+          connection.send(command);
+          return;
+        }
+      }
+    }
+
+    select().send(command);
+  }
+
+  /**
+   * Set a handler notified of the id of the primary connection once it is opened, 0 if the server has no CLIENT ID,
+   * and of -1 once it is closed.
+   */
+  void clientIdHandler(Handler<Long> handler) {
+    connections[0].clientIdHandler(handler);
+  }
+
+  /**
+   * Sends a command to the primary connection.
+   */
+  void sendPinned(Command<?> command) {
+    if ((command = admit(command)) == null) {
+      return;
+    }
+
+    connections[0].send(command);
+  }
+
+  /**
+   * Sends a command that may block its connection.
+   */
+  void sendBlocking(Command<?> command) {
+    if ((command = admit(command)) == null) {
+      return;
+    }
+
+    final RedisConnection connection;
+    final AtomicInteger count;
+
+    synchronized (blocking) {
+      int selected = -1;
+
+      for (int i = 0; i < blocked.size(); i++) {
+        if (selected == -1 || blocked.get(i).get() < blocked.get(selected).get()) {
+          selected = i;
+        }
+      }
+
+      if ((selected == -1 || blocked.get(selected).get() > 0) && blocking.size() < maxBlockingSize) {
+        blocking.add(new RedisConnection(vertx, config, null, createContext()));
+        blocked.add(new AtomicInteger());
+        selected = blocking.size() - 1;
+      }
+
+      connection = blocking.get(selected);
+      count = blocked.get(selected);
+      count.incrementAndGet();
+    }
+
+    connection.send(track(command, count::decrementAndGet));
+  }
+
+  /**
+   * @return true if the primary connection is the only one, e.g.: no blocking command was sent and the pool has a
+   * single connection
+   */
+  boolean isSingle() {
+    return all().size() == 1;
+  }
+
+  /**
+   * @return the context of the primary connection, i.e.: the context the client was created on
+   */
+  Context context() {
+    return connections[0].context();
+  }
+
+  /**
+   * @return true if the number of commands in flight reached the limit and did not drain yet
+   */
+  boolean writeQueueFull() {
+    return full.get();
+  }
+
+  void drainHandler(Handler<Void> handler) {
+    drainContext = vertx.getOrCreateContext();
+    drainHandler = handler;
+  }
+
+  /**
+   * Sends a command to every connection.
+   */
+  void sendAll(final Command<?> command) {
+    for (RedisConnection connection : all()) {
+      connection.send(command);
+    }
+  }
+
+  /**
+   * Sends a command to every connection, each one gets its own copy built by the factory.
+   *
+   * @param handler called once all the connections replied, with the first failure if any
+   */
+  <T> void sendAll(final Supplier<Command<T>> factory, final Handler<AsyncResult<T>> handler) {
+    final List<RedisConnection> all = all();
+    final AtomicInteger cnt = new AtomicInteger();
+    final AtomicReference<AsyncResult<T>> failure = new AtomicReference<>();
+
+    for (RedisConnection connection : all) {
+      connection.send(factory.get().handler(ar -> {
+        if (ar.failed()) {
+          failure.compareAndSet(null, ar);
+        }
+        if (cnt.incrementAndGet() == all.size() && handler != null) {
+          handler.handle(failure.get() == null ? ar : failure.get());
+        }
+      }));
+    }
+  }
+
+  void disconnect(Handler<AsyncResult<Void>> closeHandler) {
+    if (affine != null) {
+      // the connections are closed here, not when their context is
+      for (Affine entry : affine.values()) {
+        entry.unhook();
+      }
+    }
+
+    final List<RedisConnection> all = all();
+    final AtomicInteger cnt = new AtomicInteger(0);
+    final Handler<AsyncResult<Void>> handler = v -> {
+      if (cnt.incrementAndGet() == all.size()) {
+        closeHandler.handle(Future.succeededFuture());
+      }
+    };
+
+    for (RedisConnection connection : all) {
+      final boolean isBlocked;
+
+      synchronized (blocking) {
+        final int index = blocking.indexOf(connection);
+        isBlocked = index != -1 && blocked.get(index).get() > 0;
+      }
+
+      if (isBlocked) {
+        // QUIT would wait for the blocked commands
+        connection.close(handler);
+      } else {
+        connection.disconnect(handler);
+      }
+    }
+  }
+
+  private List<RedisConnection> all() {
+    final List<RedisConnection> all = new ArrayList<>(connections.length);
+
+    for (RedisConnection connection : connections) {
+      all.add(connection);
+    }
+
+    if (affine != null) {
+      for (Affine entry : affine.values()) {
+        if (entry.connection != connections[0]) {
+          all.add(entry.connection);
+        }
+      }
+    }
+
+    synchronized (blocking) {
+      all.addAll(blocking);
+    }
+
+    return all;
+  }
+
+  private Context createContext() {
+    return ((VertxInternal) vertx).createEventLoopContext(null, null, new JsonObject(), Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * @return a context of the given event loop that belongs to no verticle, it only runs the I/O of a connection: it has
+   * no worker pool, the handlers of the commands run on the context of their caller
+   */
+  private Context createContext(EventLoop loop) {
+    return new EventLoopContext((VertxInternal) vertx, loop, null, null, null, new JsonObject(), Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Counts a command in flight.
+   *
+   * @return the command to send or null if it was failed
+   */
+  private <T> Command<T> admit(final Command<T> command) {
+    if (maxInFlight < 0) {
+      return command;
+    }
+
+    final int count = inFlight.incrementAndGet();
+
+    if (count >= maxInFlight) {
+      full.set(true);
+
+      if (count > maxInFlight && overflow == OverflowPolicy.FAIL_FAST) {
+        release();
+        command.handle(Future.failedFuture("Too many commands in flight"));
+        return null;
+      }
+    }
+
+    return track(command, this::release);
+  }
+
+  private void release() {
+    if (inFlight.decrementAndGet() <= maxInFlight / 2 && full.compareAndSet(true, false)) {
+      final Handler<Void> handler = drainHandler;
+      final Context ctx = drainContext;
+
+      if (handler != null) {
+        ctx.runOnContext(handler);
+      }
+    }
+  }
+
+  /**
+   * Runs an action once the command is answered.
+   */
+  private static <T> Command<T> track(final Command<T> command, final Runnable done) {
+    final Handler<AsyncResult<T>> handler = command.handler();
+
+    return command.handler(ar -> {
+      done.run();
+      if (handler != null) {
+        handler.handle(ar);
+      }
+    });
+  }
+
+  /**
+   * @return the connection of the event loop of the context, null if the event loops with a connection reached the
+   * size of the pool
+   */
+  private RedisConnection affine(ContextImpl ctx) {
+    final EventLoop loop = ctx.nettyEventLoop();
+
+    while (true) {
+      Affine entry = affine.get(loop);
+
+      if (entry == null || entry.isClosed()) {
+        if ((entry = bind(loop)) == null) {
+          return null;
+        }
+      }
+
+      // retried if it was closed by its last context meanwhile
+      if (entry.use(ctx)) {
+        return entry.connection;
+      }
+    }
+  }
+
+  private Affine bind(EventLoop loop) {
+    synchronized (affine) {
+      final Affine current = affine.get(loop);
+
+      if (current != null) {
+        if (!current.isClosed()) {
+          return current;
+        }
+        affine.remove(loop, current);
+      }
+
+      if (affine.size() >= connections.length) {
+        return null;
+      }
+
+      final Affine entry = new Affine(loop, new RedisConnection(vertx, config, null, createContext(loop)), false);
+      affine.put(loop, entry);
+      return entry;
+    }
+  }
+
+  private RedisConnection select() {
+    if (connections.length == 1) {
+      return connections[0];
+    }
+
+    // the start index also breaks the ties of the least outstanding selection
+    final int start = (next.getAndIncrement() & Integer.MAX_VALUE) % connections.length;
+
+    if (selection != PoolSelection.LEAST_OUTSTANDING) {
+      return connections[start];
+    }
+
+    RedisConnection selected = connections[start];
+    int min = selected.load();
+
+    for (int i = 1; i < connections.length && min > 0; i++) {
+      final RedisConnection connection = connections[(start + i) % connections.length];
+      final int load = connection.load();
+
+      if (load < min) {
+        selected = connection;
+        min = load;
+      }
+    }
+
+    return selected;
+  }
+
+  /**
+   * A connection bound to an event loop, closed when the last context that used it is (e.g. its verticle is
+   * undeployed). The primary connection is never closed with the contexts.
+   */
+  private final class Affine {
+
+    private final EventLoop loop;
+    private final RedisConnection connection;
+    private final boolean primary;
+    // the contexts that used the connection and their close hooks
+    private final Map<ContextImpl, Closeable> hooks = new HashMap<>();
+    private boolean closed;
+
+    private Affine(EventLoop loop, RedisConnection connection, boolean primary) {
+      this.loop = loop;
+      this.connection = connection;
+      this.primary = primary;
+    }
+
+    private synchronized boolean isClosed() {
+      return closed;
+    }
+
+    /**
+     * @return false if the connection was closed
+     */
+    private synchronized boolean use(ContextImpl ctx) {
+      if (closed) {
+        return false;
+      }
+
+      if (!primary && !hooks.containsKey(ctx)) {
+        final Closeable hook = completionHandler -> release(ctx, completionHandler);
+
+        hooks.put(ctx, hook);
+        ctx.addCloseHook(hook);
+      }
+      return true;
+    }
+
+    private void release(ContextImpl ctx, Handler<AsyncResult<Void>> completionHandler) {
+      synchronized (this) {
+        hooks.remove(ctx);
+
+        if (closed || !hooks.isEmpty()) {
+          completionHandler.handle(Future.succeededFuture());
+          return;
+        }
+        closed = true;
+      }
+
+      affine.remove(loop, this);
+      connection.disconnect(completionHandler);
+    }
+
+    private synchronized void unhook() {
+      for (Map.Entry<ContextImpl, Closeable> hook : hooks.entrySet()) {
+        hook.getKey().removeCloseHook(hook.getValue());
+      }
+      hooks.clear();
+    }
+  }
+}
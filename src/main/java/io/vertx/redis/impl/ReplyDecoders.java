@@ -0,0 +1,277 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.redis.ReplyDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The built-in {@link ReplyDecoder}s. They expect a flat multi-bulk reply and size their result from its header, a
+ * nil multi-bulk reply decodes to null.
+ */
+public final class ReplyDecoders {
+
+  private ReplyDecoders() {
+  }
+
+  /**
+   * Parses a numeric bulk element without going through a String.
+   */
+  static long parseLong(Buffer value) {
+    final int length = value.length();
+
+    if (length == 0) {
+      throw new NumberFormatException("Empty value");
+    }
+
+    final boolean negative = value.getByte(0) == '-';
+    long result = 0;
+
+    for (int i = negative ? 1 : 0; i < length; i++) {
+      final byte b = value.getByte(i);
+
+      if (b < '0' || b > '9') {
+        throw new NumberFormatException("Invalid number character: " + (char) b);
+      }
+      // accumulated as a negative number so that Long.MIN_VALUE does not overflow
+      result = result * 10 - (b - '0');
+    }
+
+    return negative ? result : -result;
+  }
+
+  static double parseDouble(Buffer value) {
+    // scores are sent as their shortest representation, which is usually an integer
+    final int length = value.length();
+
+    if (length > 0 && length < 19) {
+      boolean integer = true;
+
+      for (int i = value.getByte(0) == '-' ? 1 : 0; i < length; i++) {
+        final byte b = value.getByte(i);
+        if (b < '0' || b > '9') {
+          integer = false;
+          break;
+        }
+      }
+
+      if (integer && (length > 1 || value.getByte(0) != '-')) {
+        return parseLong(value);
+      }
+    }
+
+    // inf, -inf and decimals
+    final String str = value.toString(StandardCharsets.US_ASCII);
+
+    switch (str) {
+      case "inf":
+      case "+inf":
+        return Double.POSITIVE_INFINITY;
+      case "-inf":
+        return Double.NEGATIVE_INFINITY;
+      default:
+        return Double.parseDouble(str);
+    }
+  }
+
+  /**
+   * Base class of the decoders of a flat multi-bulk reply.
+   */
+  private static abstract class Flat<T> implements ReplyDecoder<T> {
+
+    private boolean nil;
+    private boolean begun;
+
+    @Override
+    public void beginArray(int size) {
+      if (begun) {
+        throw new IllegalStateException("Unexpected nested multi-bulk reply");
+      }
+
+      begun = true;
+      init(size);
+    }
+
+    @Override
+    public void endArray() {
+    }
+
+    @Override
+    public void bulk(Buffer value) {
+      if (!begun) {
+        if (value != null) {
+          throw new IllegalStateException("Unexpected bulk reply");
+        }
+        // nil reply
+        nil = true;
+        return;
+      }
+      element(value);
+    }
+
+    @Override
+    public T result() {
+      return nil ? null : value();
+    }
+
+    abstract void init(int size);
+
+    abstract void element(Buffer value);
+
+    abstract T value();
+  }
+
+  public static final class BufferList extends Flat<List<Buffer>> {
+
+    private List<Buffer> list = Collections.emptyList();
+
+    @Override
+    void init(int size) {
+      list = new ArrayList<>(size);
+    }
+
+    @Override
+    void element(Buffer value) {
+      list.add(value);
+    }
+
+    @Override
+    List<Buffer> value() {
+      return list;
+    }
+  }
+
+  public static final class StringMap extends Flat<Map<String, String>> {
+
+    private Map<String, String> map = Collections.emptyMap();
+    private String field;
+
+    @Override
+    void init(int size) {
+      // HashMap only resizes past 3/4 of its capacity
+      map = new HashMap<>(size / 2 * 4 / 3 + 1);
+    }
+
+    @Override
+    void element(Buffer value) {
+      final String str = value == null ? null : value.toString(StandardCharsets.UTF_8);
+
+      if (field == null) {
+        field = str;
+      } else {
+        map.put(field, str);
+        field = null;
+      }
+    }
+
+    @Override
+    Map<String, String> value() {
+      return map;
+    }
+  }
+
+  public static final class LongArray extends Flat<long[]> {
+
+    private long[] array = new long[0];
+    private int index;
+
+    @Override
+    void init(int size) {
+      array = new long[size];
+    }
+
+    @Override
+    void element(Buffer value) {
+      if (value == null) {
+        throw new NumberFormatException("Unexpected nil element");
+      }
+      array[index++] = parseLong(value);
+    }
+
+    @Override
+    public void integer(long value) {
+      array[index++] = value;
+    }
+
+    @Override
+    long[] value() {
+      return array;
+    }
+  }
+
+  public static final class DoubleArray extends Flat<double[]> {
+
+    private double[] array = new double[0];
+    private int index;
+
+    @Override
+    void init(int size) {
+      array = new double[size];
+    }
+
+    @Override
+    void element(Buffer value) {
+      if (value == null) {
+        throw new NumberFormatException("Unexpected nil element");
+      }
+      array[index++] = parseDouble(value);
+    }
+
+    @Override
+    public void integer(long value) {
+      array[index++] = value;
+    }
+
+    @Override
+    double[] value() {
+      return array;
+    }
+  }
+
+  public static final class ScoreMap extends Flat<Map<String, Double>> {
+
+    private Map<String, Double> map = Collections.emptyMap();
+    private String member;
+
+    @Override
+    void init(int size) {
+      map = new LinkedHashMap<>(size / 2 * 4 / 3 + 1);
+    }
+
+    @Override
+    void element(Buffer value) {
+      if (member == null) {
+        member = value.toString(StandardCharsets.UTF_8);
+      } else {
+        map.put(member, parseDouble(value));
+        member = null;
+      }
+    }
+
+    @Override
+    Map<String, Double> value() {
+      return map;
+    }
+  }
+}
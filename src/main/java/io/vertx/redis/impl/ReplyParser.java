@@ -15,206 +15,501 @@
  */
 package io.vertx.redis.impl;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ByteProcessor;
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.redis.ReplyDecoder;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental RESP parser.
+ * <p>
+ * The parser never rewinds: between two calls to {@link #handle(Buffer)} it only keeps the offset of the next
+ * unparsed element, the declared length of a bulk payload whose header was already consumed and a stack of the
+ * multi-bulk replies that are still being filled. When a frame is incomplete the parser simply stops and resumes
+ * from the same point once more data arrives, so large multi-bulk replies are not parsed again from their first
+ * element on every read.
+ * <p>
+ * Inbound buffers are never copied: they are accumulated as components of a composite buffer and bulk replies are
+ * returned as read-only slices of them. Components that were fully consumed are only dropped once the consumed
+ * bytes go past the compaction threshold (or once everything has been consumed), so a reply spread over many reads
+ * does not pay for a copy of its unread tail on every read.
+ * <p>
+ * When a {@link BulkStreamProvider} is set, top level bulk replies can be streamed instead of buffered: the payload
+ * is written chunk by chunk to a {@link BulkReadStream} as it arrives, and the parser stalls while that stream is
+ * paused.
+ * <p>
+ * When a {@link DecoderProvider} is set, a top level reply can be pushed element by element to a {@link ReplyDecoder}
+ * instead of being built as a tree of {@link Reply}: the handler then receives a single reply holding the decoded
+ * value, or an error reply if the decoder failed.
+ */
 public class ReplyParser implements Handler<Buffer> {
 
-  private final String _encoding = "utf-8";
+  public static final int DEFAULT_COMPACTION_THRESHOLD = 64 * 1024;
+
+  private final Charset _encoding = StandardCharsets.UTF_8;
   private final Handler<Reply> handler;
-  private Buffer _buffer;
+  private final int compactionThreshold;
+  private CompositeByteBuf _buffer = Unpooled.compositeBuffer(Integer.MAX_VALUE);
   private int _offset;
 
+  // declared length of a bulk payload whose header has been consumed, -1 when not reading a bulk payload
+  private int _bulkLength = -1;
+  // delimiter bytes after a bulk payload that were not consumed yet
+  private int _pendingDelimiter;
+
+  private final NumberReader numberReader = new NumberReader();
+
+  private BulkStreamProvider streamProvider;
+  // bulk reply currently being streamed and the number of its bytes not written to the stream yet
+  private BulkReadStream _stream;
+  private int _streamRemaining;
+
+  // marks an element that was pushed to the decoder
+  private static final Reply DECODED = new Reply((byte) 0, null);
+
+  private DecoderProvider decoderProvider;
+  // decoder of the top level reply being parsed, its type and the first exception the decoder threw
+  private ReplyDecoder<?> _decoder;
+  private byte _decodedType;
+  private RuntimeException _decoderFailure;
+
+  // multi-bulk replies not yet complete, the innermost one is on top
+  private Frame[] _stack = new Frame[4];
+  private int _depth;
+
   public ReplyParser(Handler<Reply> handler) {
+    this(handler, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  public ReplyParser(Handler<Reply> handler, int compactionThreshold) {
     this.handler = handler;
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  ReplyParser bulkStreamProvider(BulkStreamProvider streamProvider) {
+    this.streamProvider = streamProvider;
+    return this;
+  }
+
+  ReplyParser decoderProvider(DecoderProvider decoderProvider) {
+    this.decoderProvider = decoderProvider;
+    return this;
   }
 
   public ReplyParser reset() {
-    _buffer = null;
+    _buffer = Unpooled.compositeBuffer(Integer.MAX_VALUE);
     _offset = 0;
+    _bulkLength = -1;
+    _pendingDelimiter = 0;
+
+    if (_stream != null) {
+      _stream.fail(new RuntimeException("Connection closed"));
+      _stream = null;
+    }
+
+    while (_depth > 0) {
+      _stack[--_depth].reply = null;
+    }
+
+    _decoder = null;
+    _decoderFailure = null;
 
     return this;
   }
 
-  private Reply parseResult(byte type) throws IndexOutOfBoundsException {
-    int start, end, offset;
-    int packetSize;
+  public void handle(Buffer buffer) {
 
-    if (type == '+' || type == '-') {
-      // up to the delimiter
-      end = packetEndOffset() - 1;
-      start = _offset;
+    append(buffer);
 
-      // include the delimiter
-      _offset = end + 2;
+    Reply reply;
 
-      if (end > _buffer.length()) {
-        _offset = start;
-        throw new IndexOutOfBoundsException("Wait for more data.");
-      }
+    while ((reply = parseNext()) != null) {
+      emit(reply);
+    }
 
-      if (type == '+') {
-        return new Reply(type, _buffer.getString(start, end, _encoding));
-      } else {
-        return new Reply(type, _buffer.getString(start, end, _encoding));
-      }
-    } else if (type == ':') {
-      // up to the delimiter
-      end = packetEndOffset() - 1;
-      start = _offset;
+    compact();
+  }
 
-      // include the delimiter
-      _offset = end + 2;
+  /**
+   * @return true if a streamed bulk reply is paused, no more data is consumed until it is resumed
+   */
+  boolean isStalled() {
+    return _stream != null && !_stream.isFlowing();
+  }
 
-      if (end > _buffer.length()) {
-        _offset = start;
-        throw new IndexOutOfBoundsException("Wait for more data.");
-      }
+  /**
+   * Parses the next complete element from the buffer. Multi-bulk headers are pushed on the stack and the parsing
+   * continues with their first element.
+   *
+   * @return the next element or null if there is not enough data
+   */
+  private Reply parseNext() {
+    while (true) {
+      if (_stream != null) {
+        final int length = Math.min(_streamRemaining, bytesRemaining());
 
-      // return the coerced numeric value
-      return new Reply(type, Long.parseLong(_buffer.getString(start, end)));
-    } else if (type == '$') {
-      // set a rewind point, as the packet could be larger than the
-      // buffer in memory
-      offset = _offset - 1;
+        if (!_stream.isFlowing() || (length == 0 && _streamRemaining > 0)) {
+          return null;
+        }
 
-      packetSize = parsePacketSize();
+        if (length > 0) {
+          _stream.write(slice(_offset, length));
+          _offset += length;
+          _streamRemaining -= length;
+        }
 
-      // packets with a size of -1 are considered null
-      if (packetSize == -1) {
-        return new Reply(type, null);
+        if (_streamRemaining == 0) {
+          _stream.end();
+          _stream = null;
+          _pendingDelimiter = 2;
+        }
+        continue;
       }
 
-      end = _offset + packetSize;
-      start = _offset;
+      if (_bulkLength != -1) {
+        // the header was already consumed, wait for the payload
+        if (bytesRemaining() < _bulkLength) {
+          return null;
+        }
 
-      // set the offset to after the delimiter
-      _offset = end + 2;
+        final int start = _offset;
+        final int end = start + _bulkLength;
 
-      if (end > _buffer.length()) {
-        _offset = offset;
-        throw new IndexOutOfBoundsException("Wait for more data.");
+        // the delimiter is consumed once it arrives, some payloads (SYNC) are not followed by one
+        _offset = end;
+        _bulkLength = -1;
+        _pendingDelimiter = 2;
+
+        if (_decoder != null) {
+          decodeBulk(slice(start, end - start));
+          return DECODED;
+        }
+
+        return new Reply((byte) '$', slice(start, end - start));
       }
 
-      return new Reply(type, _buffer.getBuffer(start, end));
-    } else if (type == '*') {
-      offset = _offset;
-      packetSize = parsePacketSize();
+      while (_pendingDelimiter > 0 && bytesRemaining() > 0) {
+        final byte b = _buffer.getByte(_offset);
+
+        if (b != '\r' && b != '\n') {
+          _pendingDelimiter = 0;
+          break;
+        }
 
-      // packets with a size of -1 are considered null
-      if (packetSize == -1) {
-        return new Reply(type, null);
+        _offset++;
+        _pendingDelimiter--;
       }
 
-      if (packetSize > bytesRemaining()) {
-        _offset = offset - 1;
-        throw new IndexOutOfBoundsException("Wait for more data.");
+      // at least the type and the delimiter: +\r\n
+      if (bytesRemaining() < 3) {
+        return null;
+      }
+
+      final byte type = _buffer.getByte(_offset);
+      final int start = _offset + 1;
+
+      if (_depth == 0 && _decoder == null && decoderProvider != null && type != '-') {
+        _decoder = decoderProvider.decoder();
+        _decodedType = type;
       }
 
-      Reply reply = new Reply(type, packetSize);
+      switch (type) {
+        case '+':
+        case '-': {
+          final int end = lineEnd(start);
 
-      byte ntype;
-      Reply res;
+          if (end == -1) {
+            return null;
+          }
 
-      for (int i = 0; i < packetSize; i++) {
-        if (_offset + 1 >= _buffer.length()) {
-          throw new IndexOutOfBoundsException("Wait for more data.");
+          // include the delimiter
+          _offset = end + 2;
+
+          if (_decoder != null) {
+            decodeLine(type, _buffer.toString(start, end - start, _encoding));
+            return DECODED;
+          }
+
+          return new Reply(type, _buffer.toString(start, end - start, _encoding));
         }
+        case ':':
+          if (!readNumber(start)) {
+            return null;
+          }
+
+          if (_decoder != null) {
+            decodeInteger(numberReader.value);
+            return DECODED;
+          }
+
+          // return the coerced numeric value
+          return new Reply(type, numberReader.value);
+        case '$': {
+          if (!readNumber(start)) {
+            return null;
+          }
+
+          final int packetSize = packetSize(numberReader.value);
+
+          // packets with a size of -1 are considered null
+          if (packetSize == -1) {
+            if (_decoder != null) {
+              decodeBulk(null);
+              return DECODED;
+            }
+            return new Reply(type, null);
+          }
+
+          if (_depth == 0 && _decoder == null && streamProvider != null) {
+            _stream = streamProvider.stream(packetSize);
+
+            if (_stream != null) {
+              _streamRemaining = packetSize;
+              break;
+            }
+          }
+
+          _bulkLength = packetSize;
+          break;
+        }
+        case '*': {
+          if (!readNumber(start)) {
+            return null;
+          }
+
+          final int packetSize = packetSize(numberReader.value);
+
+          // packets with a size of -1 are considered null
+          if (packetSize == -1) {
+            if (_decoder != null) {
+              decodeBulk(null);
+              return DECODED;
+            }
+            return new Reply(type, null);
+          }
+
+          if (_decoder != null) {
+            decodeBeginArray(packetSize);
+
+            if (packetSize == 0) {
+              decodeEndArray();
+              return DECODED;
+            }
+
+            push(null, packetSize);
+            break;
+          }
+
+          if (packetSize == 0) {
+            return new Reply(type, 0);
+          }
+
+          push(new Reply(type, packetSize), packetSize);
+          break;
+        }
+        default:
+          throw new RuntimeException("Unsupported message type");
+      }
+    }
+  }
+
+  /**
+   * Adds a complete element to the innermost multi-bulk reply, completing as many enclosing replies as possible. Once
+   * there is no enclosing reply left the element is handed to the handler.
+   */
+  private void emit(Reply reply) {
+    while (_depth > 0) {
+      final Frame frame = _stack[_depth - 1];
 
-        ntype = _buffer.getByte(_offset++);
+      if (reply != DECODED) {
+        frame.reply.set(frame.index, reply);
+      }
 
-        res = parseResult(ntype);
-        reply.set(i, res);
+      if (++frame.index < frame.size) {
+        return;
       }
 
-      return reply;
+      // the multi-bulk is complete, it becomes an element of its parent
+      if (reply == DECODED) {
+        decodeEndArray();
+      } else {
+        reply = frame.reply;
+        frame.reply = null;
+      }
+      _depth--;
     }
 
-    throw new RuntimeException("Unsupported message type");
+    if (reply == DECODED) {
+      reply = decodeResult();
+    }
+
+    handler.handle(reply);
   }
 
-  public void handle(Buffer buffer) {
+  // decoder events, once the decoder failed the rest of the reply is parsed but not pushed to it anymore
 
-    append(buffer);
+  private void decodeBeginArray(int size) {
+    try {
+      if (_decoderFailure == null) {
+        _decoder.beginArray(size);
+      }
+    } catch (RuntimeException e) {
+      _decoderFailure = e;
+    }
+  }
 
-    byte type;
-    int offset;
+  private void decodeEndArray() {
+    try {
+      if (_decoderFailure == null) {
+        _decoder.endArray();
+      }
+    } catch (RuntimeException e) {
+      _decoderFailure = e;
+    }
+  }
 
-    loop:
-    while (true) {
-      offset = _offset;
-      try {
-        // at least 4 bytes: :1\r\n
-        if (bytesRemaining() < 4) {
-          break;
-        }
+  private void decodeBulk(Buffer value) {
+    try {
+      if (_decoderFailure == null) {
+        _decoder.bulk(value);
+      }
+    } catch (RuntimeException e) {
+      _decoderFailure = e;
+    }
+  }
 
-        type = _buffer.getByte(_offset++);
-
-        switch (type) {
-          case '*':
-            // set a rewind point. if a failure occurs,
-            // wait for the next handle()/append() and try again
-            offset = _offset - 1;
-          case '+':
-          case '-':
-          case ':':
-          case '$':
-            final Reply ret = parseResult(type);
-
-            if (ret == null) {
-              break loop;
-            }
+  private void decodeInteger(long value) {
+    try {
+      if (_decoderFailure == null) {
+        _decoder.integer(value);
+      }
+    } catch (RuntimeException e) {
+      _decoderFailure = e;
+    }
+  }
 
-            handler.handle(ret);
-            break;
+  private void decodeLine(byte type, String value) {
+    try {
+      if (_decoderFailure == null) {
+        if (type == '+') {
+          _decoder.status(value);
+        } else {
+          _decoder.error(value);
         }
-      } catch (IndexOutOfBoundsException err) {
-        // catch the error (not enough data), rewind, and wait
-        // for the next packet to appear
-        _offset = offset;
-        break;
       }
+    } catch (RuntimeException e) {
+      _decoderFailure = e;
     }
   }
 
-  private void append(Buffer newBuffer) {
-    if (newBuffer == null) {
-      return;
+  private Reply decodeResult() {
+    final ReplyDecoder<?> decoder = _decoder;
+    final RuntimeException failure = _decoderFailure;
+
+    _decoder = null;
+    _decoderFailure = null;
+
+    if (failure == null) {
+      try {
+        return new Reply(_decodedType, decoder.result());
+      } catch (RuntimeException e) {
+        return new Reply((byte) '-', String.valueOf(e.getMessage()));
+      }
     }
 
-    // first run
-    if (_buffer == null) {
-      _buffer = newBuffer;
+    return new Reply((byte) '-', String.valueOf(failure.getMessage()));
+  }
 
-      return;
+  private void push(Reply reply, int size) {
+    if (_depth == _stack.length) {
+      _stack = Arrays.copyOf(_stack, _depth * 2);
     }
 
-    // out of data
-    if (_offset >= _buffer.length()) {
-      _buffer = newBuffer;
-      _offset = 0;
+    Frame frame = _stack[_depth];
 
-      return;
+    if (frame == null) {
+      frame = new Frame();
+      _stack[_depth] = frame;
     }
 
-    // very large packet
-    if (_offset > 0) {
-      _buffer = _buffer.getBuffer(_offset, _buffer.length());
+    frame.reply = reply;
+    frame.size = size;
+    frame.index = 0;
+
+    _depth++;
+  }
+
+  private void append(Buffer newBuffer) {
+    if (newBuffer == null || newBuffer.length() == 0) {
+      return;
     }
-    _buffer.appendBuffer(newBuffer);
 
-    _offset = 0;
+    // keep a reference to the inbound buffer, its bytes are not copied
+    _buffer.addComponent(true, newBuffer.getByteBuf());
+  }
+
+  /**
+   * Drops the components that were fully consumed. While a reply is incomplete this only happens past the compaction
+   * threshold, in any case the unread bytes stay where they are.
+   */
+  private void compact() {
+    if (_offset == _buffer.writerIndex() || _offset >= compactionThreshold) {
+      _buffer.readerIndex(_offset);
+      _buffer.discardReadComponents();
+      _offset = _buffer.readerIndex();
+    }
   }
 
-  private int parsePacketSize() throws IndexOutOfBoundsException {
-    int end = packetEndOffset();
-    String value = _buffer.getString(_offset, end - 1, _encoding);
+  /**
+   * Returns a read-only view of a bulk payload, sharing the memory of the inbound buffers it spans.
+   */
+  private Buffer slice(int start, int length) {
+    final List<ByteBuf> components = _buffer.decompose(start, length);
+    final ByteBuf slice;
 
-    _offset = end + 1;
+    switch (components.size()) {
+      case 0:
+        slice = Unpooled.EMPTY_BUFFER;
+        break;
+      case 1:
+        slice = components.get(0).slice();
+        break;
+      default:
+        slice = Unpooled.wrappedBuffer(components.toArray(new ByteBuf[components.size()]));
+        break;
+    }
 
-    long size = Long.parseLong(value);
+    return Buffer.buffer(slice.asReadOnly());
+  }
+
+  /**
+   * Reads the number on the line that starts at the given offset straight from the buffer into
+   * {@link NumberReader#value} and moves past its delimiter.
+   *
+   * @return false if the delimiter has not been received yet
+   */
+  private boolean readNumber(int offset) {
+    final int cr = _buffer.forEachByte(offset, _buffer.writerIndex() - offset, numberReader.reset());
+
+    if (cr == -1 || cr + 1 >= _buffer.writerIndex()) {
+      return false;
+    }
 
+    numberReader.complete();
+    // include the delimiter
+    _offset = cr + 2;
+    return true;
+  }
+
+  private static int packetSize(long size) {
     if (size > Integer.MAX_VALUE) {
       throw new RuntimeException("Cannot allocate more than " + Integer.MAX_VALUE + " bytes");
     }
@@ -225,37 +520,89 @@ public class ReplyParser implements Handler<Buffer> {
     return (int) size;
   }
 
-  private int packetEndOffset() throws IndexOutOfBoundsException {
-    int offset = _offset;
+  /**
+   * Locates the end of the line that starts at the given offset.
+   *
+   * @return the offset of the CR of the delimiter or -1 if the delimiter has not been received yet
+   */
+  private int lineEnd(int offset) {
+    final int cr = _buffer.forEachByte(offset, _buffer.writerIndex() - offset, ByteProcessor.FIND_CR);
 
-    if (offset + 1 >= _buffer.length()) {
-      throw new IndexOutOfBoundsException("Not enough data.");
+    if (cr == -1 || cr + 1 >= _buffer.writerIndex()) {
+      return -1;
     }
 
-    while (_buffer.getByte(offset) != '\r' && _buffer.getByte(offset + 1) != '\n') {
-      offset++;
+    return cr;
+  }
 
-      if (offset + 1 == _buffer.length()) {
-        throw new IndexOutOfBoundsException("didn't see LF after NL reading multi bulk count (" + offset + " => " + _buffer.length() + ", " + _offset + ")");
-      }
-    }
+  private int bytesRemaining() {
+    return (_buffer.writerIndex() - _offset) < 0 ? 0 : (_buffer.writerIndex() - _offset);
+  }
 
-    offset++;
-    return offset;
+  /**
+   * Decides whether a top level bulk reply is streamed instead of buffered.
+   */
+  interface BulkStreamProvider {
+    /**
+     * @param length the declared length of the bulk reply
+     * @return the stream the payload is written to or null to buffer the reply
+     */
+    BulkReadStream stream(int length);
   }
 
-  private int bytesRemaining() {
-    return (_buffer.length() - _offset) < 0 ? 0 : (_buffer.length() - _offset);
+  /**
+   * Decides whether a top level reply is pushed to a decoder instead of being built as a tree of {@link Reply}.
+   */
+  interface DecoderProvider {
+    /**
+     * @return the decoder for the reply that starts or null to build the reply
+     */
+    ReplyDecoder<?> decoder();
   }
 
-  private static class IndexOutOfBoundsException extends Exception {
-    IndexOutOfBoundsException(String message) {
-      super(message);
+  /**
+   * Accumulates the digits of a number while looking for the CR that ends its line, so numbers are decoded without
+   * creating any intermediate String. The value is accumulated as a negative number so that
+   * {@link Long#MIN_VALUE} does not overflow.
+   */
+  private static final class NumberReader implements ByteProcessor {
+    long value;
+    boolean negative;
+    boolean first;
+
+    NumberReader reset() {
+      value = 0;
+      negative = false;
+      first = true;
+      return this;
+    }
+
+    void complete() {
+      if (!negative) {
+        value = -value;
+      }
     }
 
     @Override
-    public synchronized Throwable fillInStackTrace() {
-      return this;
+    public boolean process(byte b) {
+      if (b >= '0' && b <= '9') {
+        value = value * 10 - (b - '0');
+      } else if (b == '\r') {
+        return false;
+      } else if (b == '-' && first) {
+        negative = true;
+      } else {
+        throw new RuntimeException("Invalid number character: " + (char) b);
+      }
+
+      first = false;
+      return true;
     }
   }
+
+  private static final class Frame {
+    Reply reply;
+    int size;
+    int index;
+  }
 }
@@ -19,5 +19,6 @@ public enum ResponseTransform {
   NONE,
   HASH,
   INFO,
-  ARRAY
+  ARRAY,
+  STREAM
 }
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.redis.op.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The elements of a SCAN, SSCAN, HSCAN or ZSCAN iteration exposed as a stream, the pages are requested with the
+ * cursor of the previous one as the elements are consumed.
+ * <p>
+ * The next page is only requested once the current one was delivered while the stream flows, or as soon as the
+ * current one is received when prefetching, so at most two pages are held here. The elements are delivered on the
+ * context of the caller.
+ */
+class ScanReadStream<T> implements ReadStream<T> {
+
+  /**
+   * Sends the command for a page, given the cursor.
+   */
+  interface Pager {
+    void page(String cursor, Handler<AsyncResult<JsonArray>> handler);
+  }
+
+  private final Context context;
+  private final Pager pager;
+  // number of items of a page making an element, e.g.: a field and its value
+  private final int entrySize;
+  private final Function<List<Object>, T> entry;
+  private final boolean prefetch;
+
+  private String cursor = "0";
+  // the server returned the last page
+  private boolean done;
+  private boolean fetching;
+  private List<T> page = new ArrayList<>();
+  private int position;
+  // the page received while the current one is being consumed
+  private List<T> next;
+
+  private boolean started;
+  private boolean paused;
+  private boolean delivering;
+  private boolean endNotified;
+  private Handler<T> handler;
+  private Handler<Void> endHandler;
+  private Handler<Throwable> exceptionHandler;
+
+  ScanReadStream(ScanOptions options, int entrySize, Function<List<Object>, T> entry, Pager pager) {
+    this.context = Vertx.currentContext();
+    this.pager = pager;
+    this.entrySize = entrySize;
+    this.entry = entry;
+    this.prefetch = options != null && options.isPrefetch();
+  }
+
+  @Override
+  public ScanReadStream<T> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public ScanReadStream<T> handler(Handler<T> handler) {
+    this.handler = handler;
+    // the iteration starts with the first handler
+    if (handler != null) {
+      started = true;
+    }
+    drain();
+    return this;
+  }
+
+  @Override
+  public ScanReadStream<T> pause() {
+    paused = true;
+    return this;
+  }
+
+  @Override
+  public ScanReadStream<T> resume() {
+    paused = false;
+    drain();
+    return this;
+  }
+
+  @Override
+  public ScanReadStream<T> endHandler(Handler<Void> endHandler) {
+    this.endHandler = endHandler;
+    drain();
+    return this;
+  }
+
+  private boolean isFlowing() {
+    return !paused && handler != null;
+  }
+
+  private void drain() {
+    // a handler pausing and resuming the stream does not deliver recursively
+    if (delivering || endNotified) {
+      return;
+    }
+
+    delivering = true;
+    try {
+      while (isFlowing()) {
+        if (position == page.size()) {
+          if (next == null) {
+            break;
+          }
+          page = next;
+          position = 0;
+          next = null;
+        }
+        handler.handle(page.get(position++));
+      }
+    } finally {
+      delivering = false;
+    }
+
+    fetch();
+
+    if (done && !fetching && next == null && position == page.size() && endHandler != null) {
+      endNotified = true;
+      endHandler.handle(null);
+    }
+  }
+
+  private void fetch() {
+    if (!started || done || fetching || next != null || endNotified) {
+      return;
+    }
+
+    final boolean consumed = position == page.size();
+
+    // the next page is needed now, or fetched ahead
+    if (!(consumed && isFlowing()) && !prefetch) {
+      return;
+    }
+
+    fetching = true;
+    pager.page(cursor, reply -> runOnContext(v -> received(reply)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void received(AsyncResult<JsonArray> reply) {
+    fetching = false;
+
+    if (endNotified) {
+      return;
+    }
+
+    if (reply.failed()) {
+      endNotified = true;
+      page.clear();
+      next = null;
+      if (exceptionHandler != null) {
+        exceptionHandler.handle(reply.cause());
+      }
+      return;
+    }
+
+    // [cursor, [item, ...]]
+    final JsonArray result = reply.result();
+    final List<Object> items = result.getJsonArray(1).getList();
+    final List<T> elements = new ArrayList<>(items.size() / entrySize);
+
+    for (int i = 0; i + entrySize <= items.size(); i += entrySize) {
+      elements.add(entry.apply(items.subList(i, i + entrySize)));
+    }
+
+    cursor = result.getString(0);
+    done = "0".equals(cursor);
+
+    if (position == page.size()) {
+      page = elements;
+      position = 0;
+    } else {
+      next = elements;
+    }
+
+    drain();
+  }
+
+  private void runOnContext(Handler<Void> action) {
+    if (context == null || Vertx.currentContext() == context) {
+      action.handle(null);
+    } else {
+      context.runOnContext(action);
+    }
+  }
+}
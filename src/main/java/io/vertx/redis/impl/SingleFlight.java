@@ -0,0 +1,259 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static io.vertx.redis.impl.RedisCommand.*;
+
+/**
+ * Registry of the read commands in flight: a command identical to one that was sent and not answered yet is not sent,
+ * its handler is completed with the reply of the first one.
+ * <p>
+ * Commands are identical when their frames are, and they expect the same type of result. The callers that attach to a
+ * command get their own copy of a mutable result.
+ * <p>
+ * A command that modifies a key detaches the reads of that key in flight, so the reads sent after it are sent again
+ * and see the write.
+ */
+final class SingleFlight {
+
+  // commands without side effects whose reply only depends on the data, e.g.: not SRANDMEMBER
+  private static final Set<RedisCommand> READS = EnumSet.of(
+    EXISTS, TYPE, STRLEN, GET, GETRANGE, GETBIT, BITCOUNT, MGET,
+    HEXISTS, HGET, HGETALL, HKEYS, HLEN, HMGET, HSTRLEN, HVALS,
+    LINDEX, LLEN, LRANGE,
+    SCARD, SISMEMBER, SMEMBERS,
+    ZCARD, ZCOUNT, ZLEXCOUNT, ZRANGE, ZRANGEBYLEX, ZRANGEBYSCORE, ZRANK, ZREVRANGE, ZREVRANGEBYLEX,
+    ZREVRANGEBYSCORE, ZREVRANK, ZSCORE);
+
+  private static final class Key {
+    final Buffer frame;
+    final Class<?> returnType;
+    final ResponseTransform transform;
+
+    Key(Command<?> command) {
+      this.frame = command.buffer();
+      this.returnType = command.returnType();
+      this.transform = command.responseTransform();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) o;
+      return returnType == other.returnType && transform == other.transform && frame.equals(other.frame);
+    }
+
+    @Override
+    public int hashCode() {
+      return frame.hashCode();
+    }
+  }
+
+  /**
+   * A command in flight and the callers attached to it.
+   */
+  private static final class Flight {
+    private final Key key;
+    // the keys read by the command
+    private final List<String> keys;
+    private final List<Handler<AsyncResult<Object>>> followers = new ArrayList<>();
+    private boolean done;
+
+    Flight(Key key, List<String> keys) {
+      this.key = key;
+      this.keys = keys;
+    }
+
+    synchronized boolean attach(Handler<AsyncResult<Object>> handler) {
+      if (done) {
+        return false;
+      }
+      followers.add(handler);
+      return true;
+    }
+
+    void complete(AsyncResult<Object> result) {
+      final List<Handler<AsyncResult<Object>>> handlers;
+
+      synchronized (this) {
+        done = true;
+        handlers = new ArrayList<>(followers);
+        followers.clear();
+      }
+
+      for (Handler<AsyncResult<Object>> handler : handlers) {
+        handler.handle(result.succeeded() ? Future.succeededFuture(copy(result.result())) : result);
+      }
+    }
+  }
+
+  private final ConcurrentMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+  // the commands in flight by the keys they read, the sets are only modified while computing their entry
+  private final ConcurrentMap<String, Set<Flight>> byKey = new ConcurrentHashMap<>();
+
+  /**
+   * Detaches the commands in flight, the next identical commands are sent, e.g.: another database was selected.
+   * The callers already attached still get the reply of the command they are attached to.
+   */
+  void clear() {
+    inFlight.clear();
+    byKey.clear();
+  }
+
+  /**
+   * Detaches the reads in flight of the keys a command modifies, or all of them if it flushes a database.
+   */
+  void detach(RedisCommand command, List<?> args) {
+    if (command == FLUSHDB || command == FLUSHALL) {
+      clear();
+      return;
+    }
+
+    CommandKeys.written(command, args, key -> {
+      final Set<Flight> flights = byKey.remove(key);
+
+      if (flights != null) {
+        for (Flight flight : flights) {
+          inFlight.remove(flight.key, flight);
+        }
+      }
+    });
+  }
+
+  static boolean isRead(RedisCommand command) {
+    return READS.contains(command);
+  }
+
+  /**
+   * Sends a command unless an identical one is in flight.
+   *
+   * @param redisCommand the command read
+   * @param args         its arguments
+   * @param sender       sends the command
+   */
+  @SuppressWarnings("unchecked")
+  <T> void send(RedisCommand redisCommand, List<?> args, Command<T> command, Handler<Command<T>> sender) {
+    final Key key = new Key(command);
+    final Flight flight = new Flight(key, readKeys(redisCommand, args));
+    final Flight current = inFlight.putIfAbsent(key, flight);
+
+    if (current != null && current.attach(attached(command.handler()))) {
+      return;
+    }
+
+    if (current == null) {
+      final Handler<AsyncResult<T>> handler = command.handler();
+
+      for (String read : flight.keys) {
+        byKey.compute(read, (k, flights) -> {
+          final Set<Flight> result = flights == null ? new HashSet<>() : flights;
+          result.add(flight);
+          return result;
+        });
+      }
+
+      command.handler(reply -> {
+        // removed first, no caller can attach once it completes
+        inFlight.remove(key, flight);
+        for (String read : flight.keys) {
+          byKey.computeIfPresent(read, (k, flights) -> {
+            flights.remove(flight);
+            return flights.isEmpty() ? null : flights;
+          });
+        }
+        if (handler != null) {
+          handler.handle(reply);
+        }
+        flight.complete((AsyncResult<Object>) reply);
+      });
+    }
+
+    sender.handle(command);
+  }
+
+  /**
+   * @return the keys a read command reads
+   */
+  private static List<String> readKeys(RedisCommand command, List<?> args) {
+    final List<String> keys = new ArrayList<>(1);
+
+    if (args != null) {
+      // MGET and EXISTS read all their arguments, the other reads their first one
+      final int count = command == MGET || command == EXISTS ? args.size() : Math.min(1, args.size());
+
+      for (int i = 0; i < count; i++) {
+        if (args.get(i) instanceof String) {
+          keys.add((String) args.get(i));
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * @return a handler completing an attached caller on its own context
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> Handler<AsyncResult<Object>> attached(Handler<AsyncResult<T>> handler) {
+    final Context context = Vertx.currentContext();
+
+    return reply -> {
+      if (handler == null) {
+        return;
+      }
+      if (context == null || Vertx.currentContext() == context) {
+        handler.handle((AsyncResult<T>) (AsyncResult) reply);
+      } else {
+        context.runOnContext(v -> handler.handle((AsyncResult<T>) (AsyncResult) reply));
+      }
+    };
+  }
+
+  private static Object copy(Object value) {
+    if (value instanceof JsonArray) {
+      return ((JsonArray) value).copy();
+    }
+    if (value instanceof JsonObject) {
+      return ((JsonObject) value).copy();
+    }
+    if (value instanceof Buffer) {
+      return ((Buffer) value).copy();
+    }
+    return value;
+  }
+}
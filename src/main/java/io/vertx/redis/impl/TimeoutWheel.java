@@ -0,0 +1,145 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * A hashed timing wheel tracking the deadlines of the commands of a connection.
+ * <p>
+ * Scheduling a command is a constant time insertion in the slot of its deadline, a single periodic timer walks the
+ * slots while commands are tracked. Commands that were answered are dropped lazily when the wheel reaches their slot.
+ * When a command is overdue the expiry handler is called once for the tick, the connection cannot drop a single
+ * reply from its pipeline so it does not matter which command it was.
+ * <p>
+ * Not thread safe, it is only used from the context of its connection.
+ */
+final class TimeoutWheel {
+
+  // resolution of the deadlines in milliseconds
+  static final long TICK = 10;
+  private static final int SLOTS = 512;
+
+  private static final class Entry {
+    final Command<?> command;
+    final long deadline;
+    Entry next;
+
+    Entry(Command<?> command, long deadline, Entry next) {
+      this.command = command;
+      this.deadline = deadline;
+      this.next = next;
+    }
+  }
+
+  private final Vertx vertx;
+  private final Handler<Void> expiryHandler;
+  private final Entry[] slots = new Entry[SLOTS];
+  private final long origin = System.nanoTime();
+
+  // last tick that was processed
+  private long processed;
+  private int count;
+  private long timerId = -1;
+
+  TimeoutWheel(Vertx vertx, Handler<Void> expiryHandler) {
+    this.vertx = vertx;
+    this.expiryHandler = expiryHandler;
+  }
+
+  /**
+   * Tracks a command that was written, it expires if it is not answered within the timeout.
+   *
+   * @param timeout the timeout in milliseconds
+   */
+  void schedule(Command<?> command, long timeout) {
+    if (timerId == -1) {
+      processed = now();
+      timerId = vertx.setPeriodic(TICK, id -> expire());
+    }
+
+    // the current tick is partially elapsed, a deadline is never early
+    final long deadline = now() + (timeout + TICK - 1) / TICK + 1;
+    final int index = (int) (deadline & (SLOTS - 1));
+
+    slots[index] = new Entry(command, deadline, slots[index]);
+    count++;
+  }
+
+  /**
+   * Drops all the commands, e.g.: once the connection is closed.
+   */
+  void clear() {
+    for (int i = 0; i < SLOTS; i++) {
+      slots[i] = null;
+    }
+    count = 0;
+    cancel();
+  }
+
+  private void expire() {
+    final long current = now();
+    boolean expired = false;
+
+    // catch up with the ticks missed by a busy event loop
+    while (processed < current && count > 0) {
+      processed++;
+
+      final int index = (int) (processed & (SLOTS - 1));
+      Entry prev = null;
+      Entry entry = slots[index];
+
+      while (entry != null) {
+        final boolean done = entry.command.isDone();
+
+        if (done || entry.deadline <= processed) {
+          expired |= !done;
+          // unlink
+          if (prev == null) {
+            slots[index] = entry.next;
+          } else {
+            prev.next = entry.next;
+          }
+          count--;
+        } else {
+          // due in a later round
+          prev = entry;
+        }
+        entry = entry.next;
+      }
+    }
+
+    if (count == 0) {
+      cancel();
+    }
+
+    if (expired) {
+      expiryHandler.handle(null);
+    }
+  }
+
+  private void cancel() {
+    if (timerId != -1) {
+      vertx.cancelTimer(timerId);
+      timerId = -1;
+    }
+  }
+
+  private long now() {
+    return (System.nanoTime() - origin) / 1_000_000 / TICK;
+  }
+}
@@ -30,6 +30,7 @@ public class ScanOptions {
 
   private String pattern;
   private Integer count;
+  private boolean prefetch;
 
   public ScanOptions() {
   }
@@ -37,11 +38,13 @@ public class ScanOptions {
   public ScanOptions(ScanOptions copy) {
     this.pattern = copy.pattern;
     this.count = copy.count;
+    this.prefetch = copy.prefetch;
   }
 
   public ScanOptions(JsonObject obj) {
     this.pattern = obj.getString("pattern");
     this.count = obj.getInteger("count");
+    this.prefetch = obj.getBoolean("prefetch", false);
   }
 
   public JsonObject toJson() {
@@ -51,6 +54,9 @@ public class ScanOptions {
     } else if (pattern != null) {
       result.put("pattern", pattern);
     }
+    if (prefetch) {
+      result.put("prefetch", true);
+    }
     return result;
   }
 
@@ -64,6 +70,20 @@ public class ScanOptions {
     return this;
   }
 
+  /**
+   * Set whether a scan stream requests the next page while the current one is consumed, so the consumer does not
+   * wait for it. At most one page is fetched ahead, even while the stream is paused. Ignored by the commands that
+   * return a single page.
+   */
+  public ScanOptions setPrefetch(boolean prefetch) {
+    this.prefetch = prefetch;
+    return this;
+  }
+
+  public boolean isPrefetch() {
+    return prefetch;
+  }
+
   public JsonArray toJsonArray() {
     JsonArray result = new JsonArray();
     if (pattern != null) {
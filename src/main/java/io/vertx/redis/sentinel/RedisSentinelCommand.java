@@ -1,6 +1,7 @@
 package io.vertx.redis.sentinel;
 
 import io.vertx.redis.impl.AbstractCommand;
+import io.vertx.redis.impl.Command;
 
 /**
  * Redis Sentinel Commands
@@ -24,14 +25,20 @@ public enum RedisSentinelCommand implements AbstractCommand {
   UNSUBSCRIBE("UNSUBSCRIBE");
 
   private final String[] tokens;
+  private final byte[] bytes;
 
   RedisSentinelCommand(String command) {
     this.tokens = command.split(" ");
+    this.bytes = Command.encodeTokens(tokens);
   }
 
   public String[] getTokens() {
     return tokens;
   }
+
+  public byte[] getBytes() {
+    return bytes;
+  }
 }
 
 
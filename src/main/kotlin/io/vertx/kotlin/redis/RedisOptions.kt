@@ -8,6 +8,10 @@ import io.vertx.core.net.PemKeyCertOptions
 import io.vertx.core.net.PemTrustOptions
 import io.vertx.core.net.PfxOptions
 import io.vertx.core.net.ProxyOptions
+import io.vertx.redis.NearCacheEviction
+import io.vertx.redis.NearCacheInvalidation
+import io.vertx.redis.OverflowPolicy
+import io.vertx.redis.PoolSelection
 
 /**
  * A function providing a DSL for building [io.vertx.redis.RedisOptions] objects.
@@ -35,12 +39,18 @@ import io.vertx.core.net.ProxyOptions
  * @param address  Set the eventbus address prefix for `PUB/SUB`. * @param address address prefix.
  * @param auth  Set the password for authentication at connection time.
  * @param binary  Set the user defined character encoding, e.g.: `iso-8859-1`. * @param binary use binary messages
+ * @param circuitBreakerThreshold  Set the number of failed attempts to connect after which commands fail immediately instead of being queued until the connection is back. The client keeps attempting to reconnect in the background, commands are accepted again once a PING on the new connection succeeds. Use 0 to always queue the commands.
+ * @param commandCoalescing  Set whether the consecutive GET (and SET) commands issued in the same event loop tick are merged into a single MGET (MSET) sent once the tick ends, the replies are dispatched to each caller. Any other command sent from the same context sends the merged commands first so the order of the commands is kept. <p> A merged GET of a key that does not hold a string completes with null instead of failing, as MGET does.
+ * @param commandTimeout  Set how long a command waits for its reply once it was sent, in milliseconds, 0 to wait forever. The replies are matched to the commands by their order, so when a reply is overdue the connection is closed and opened again, failing all the commands that were waiting on it. Blocking commands (BLPOP, BRPOP, BRPOPLPUSH and WAIT) have their own timeout and are not affected. Use [io.vertx.redis.RedisClient] for a different timeout on some calls.
  * @param connectTimeout 
  * @param crlPaths 
  * @param crlValues 
+ * @param domainSocketAddress  Set the path of the Unix domain socket the Redis server is listening on, e.g.: <code>/var/run/redis/redis.sock</code>. When it is set the host and the port are ignored. Domain sockets need the native transport: [io.vertx.core.VertxOptions] and the Netty native transport for the platform on the classpath.
+ * @param eagerConnect  Set whether the pooled connections are opened when the client is created instead of on the first command, so that the first commands do not wait for the handshake. Use [io.vertx.redis.RedisClient] to know when they are ready.
  * @param enabledCipherSuites 
  * @param enabledSecureTransportProtocols 
  * @param encoding  Set the user defined character encoding, e.g.: `iso-8859-1`. * @param encoding the user character encoding
+ * @param eventLoopAffinity  Set whether the commands sent from an event loop use a connection bound to that event loop. Such a connection is opened on the first command sent from the event loop, commands are then written and their replies handled on the thread of the caller, without a task queued on the event loop in either direction. It is shared by all the contexts of the event loop and closed with the last of them. At most [io.vertx.redis.RedisOptions] event loops get their own connection, commands sent from the other ones, from elsewhere and commands that depend on the state of the connection still use the pool.
  * @param host  Set the host name where the Redis server is listening. * @param host host name
  * @param hostnameVerificationAlgorithm 
  * @param idleTimeout 
@@ -49,23 +59,38 @@ import io.vertx.core.net.ProxyOptions
  * @param localAddress 
  * @param logActivity 
  * @param masterName  Set name of Redis master (used with Sentinel).
+ * @param maxBlockingPoolSize  Set the maximum number of connections used for blocking commands (BLPOP, BRPOP, BRPOPLPUSH and WAIT). They are kept apart from the other connections so that a blocked command does not delay the commands pipelined behind it. The connections are opened the first time all the existing ones are blocked, once the maximum is reached the blocking commands are queued behind the others.
+ * @param maxInFlightCommands  Set the maximum number of commands queued or waiting for a reply, for all the connections of the client but the pub/sub one. Use -1 for no limit. What happens to the commands sent past the limit depends on the [io.vertx.redis.RedisOptions], in any case [io.vertx.redis.RedisClient] returns true until the number of commands drops to half the limit.
+ * @param maxPoolSize  Set the number of pipelined connections the commands are spread over. Pub/sub always uses its own connection. Commands that change the state of a connection (transactions, CLIENT SETNAME, CLIENT REPLY, MONITOR) are always sent to the same connection. SELECT is sent to every connection and applies to the connections opened later, it can only be part of a transaction while the client has a single connection.
+ * @param maxReconnectInterval  Set the maximum interval between two attempts to reconnect, in milliseconds. When it is greater than the [io.vertx.redis.RedisOptions] the interval doubles after every failed attempt up to this maximum, and a random jitter of up to half the interval is applied so that clients do not reconnect in lockstep. Otherwise the client attempts to reconnect at a fixed interval.
  * @param metricsName 
+ * @param nearCacheEviction  Set which entry is evicted once the near cache is full.
+ * @param nearCacheInvalidation  Set how the near cache learns that the keys it holds were modified. Keyspace notifications work with the servers that have no client side caching, they need <code>notify-keyspace-events</code> to be set on the server and they do not report the databases flushed by other clients, a TTL bounds how long their keys are served.
+ * @param nearCacheMaxSize  Set the maximum size of the near cache, the estimated size of the keys and values it holds. The near cache keeps the replies of GET and HGET locally, the next reads of the same key are served without a round trip until the key is modified. The server notifies the changes as set with [io.vertx.redis.RedisOptions], the reads are always sent to a server that does not support it. <p> The writes sent by this client evict the keys they name at once.
+ * @param nearCachePrefixes  Set the prefixes of the keys kept in the near cache, the server only notifies the changes of these keys.
+ * @param nearCachePrefixs  Add a prefix of the keys kept in the near cache.
+ * @param nearCacheTtl  Set the time an entry is kept in the near cache, it bounds the staleness of an entry if a notification is lost.
  * @param openSslEngineOptions 
+ * @param overflowPolicy  Set what happens to the commands sent past the maximum number of commands in flight.
  * @param pemKeyCertOptions 
  * @param pemTrustOptions 
  * @param pfxKeyCertOptions 
  * @param pfxTrustOptions 
+ * @param poolSelection  Set how commands pick one of the pooled connections. Only used when the pool has more than one connection.
  * @param port  Set the tcp port where the Redis server is listening.
  * @param proxyOptions 
+ * @param readBufferCompactionThreshold  Set the number of consumed bytes after which the reply parser drops the inbound buffers it already read. Inbound buffers are never copied, a fully consumed read buffer is always released, this threshold only applies while a reply is still incomplete.
+ * @param readDeduplication  Set whether a read command (e.g.: GET, HGETALL) identical to one that was sent and not answered yet waits for the reply of the first one instead of being sent. This caps the number of identical reads sent at once when many callers ask for the same hot key. <p> A write of this client to a key ends the sharing of the reads of that key in flight, so the client still reads its own writes. A shared reply may predate a write of another client, as the reply of a read sent at the same time would. Commands of a transaction are always sent.
  * @param receiveBufferSize 
  * @param reconnectAttempts 
  * @param reconnectInterval 
  * @param reuseAddress 
- * @param select  Set the database to select at connection time. * @param select database id
+ * @param select  Set the database to select at connection time. A client keeps a copy of its options, <code>SELECT</code> then changes the database of all its connections, including the ones opened or reconnected later. * @param select database id
  * @param sendBufferSize 
  * @param sentinels  Set the list of Sentinels.
  * @param soLinger 
  * @param ssl 
+ * @param streamingThreshold  Set the declared length from which the bulk replies of streaming commands (e.g.: [io.vertx.redis.RedisClient]) are streamed chunk by chunk instead of being buffered. Smaller replies are buffered and delivered as a single chunk.
  * @param tcpKeepAlive 
  * @param tcpNoDelay 
  * @param trafficClass 
@@ -73,6 +98,9 @@ import io.vertx.core.net.ProxyOptions
  * @param trustStoreOptions 
  * @param useAlpn 
  * @param usePooledBuffers 
+ * @param writeCoalescing  Set whether the commands issued in the same event loop tick are gathered and written to the socket in a single write and flush once the tick ends, instead of one write per command. This reduces the number of writes and flushes (and system calls) when many commands are pipelined at once.
+ * @param writeCoalescingThreshold  Set the number of gathered bytes after which coalesced commands are written without waiting for the end of the tick. Only used when write coalescing is enabled.
+ * @param zeroCopyThreshold  Set the size from which Buffer and byte[] arguments are written by reference instead of being copied into the request. Such arguments are read when the command is written, after the call returned: they must not be modified until the handler of the command is called.
  *
  * <p/>
  * NOTE: This function has been automatically generated from the [io.vertx.redis.RedisOptions original] using Vert.x codegen.
@@ -81,12 +109,18 @@ fun RedisOptions(
   address: String? = null,
   auth: String? = null,
   binary: Boolean? = null,
+  circuitBreakerThreshold: Int? = null,
+  commandCoalescing: Boolean? = null,
+  commandTimeout: Long? = null,
   connectTimeout: Int? = null,
   crlPaths: Iterable<String>? = null,
   crlValues: Iterable<io.vertx.core.buffer.Buffer>? = null,
+  domainSocketAddress: String? = null,
+  eagerConnect: Boolean? = null,
   enabledCipherSuites: Iterable<String>? = null,
   enabledSecureTransportProtocols: Iterable<String>? = null,
   encoding: String? = null,
+  eventLoopAffinity: Boolean? = null,
   host: String? = null,
   hostnameVerificationAlgorithm: String? = null,
   idleTimeout: Int? = null,
@@ -95,14 +129,28 @@ fun RedisOptions(
   localAddress: String? = null,
   logActivity: Boolean? = null,
   masterName: String? = null,
+  maxBlockingPoolSize: Int? = null,
+  maxInFlightCommands: Int? = null,
+  maxPoolSize: Int? = null,
+  maxReconnectInterval: Long? = null,
   metricsName: String? = null,
+  nearCacheEviction: NearCacheEviction? = null,
+  nearCacheInvalidation: NearCacheInvalidation? = null,
+  nearCacheMaxSize: Long? = null,
+  nearCachePrefixes: Iterable<String>? = null,
+  nearCachePrefixs: Iterable<String>? = null,
+  nearCacheTtl: Long? = null,
   openSslEngineOptions: io.vertx.core.net.OpenSSLEngineOptions? = null,
+  overflowPolicy: OverflowPolicy? = null,
   pemKeyCertOptions: io.vertx.core.net.PemKeyCertOptions? = null,
   pemTrustOptions: io.vertx.core.net.PemTrustOptions? = null,
   pfxKeyCertOptions: io.vertx.core.net.PfxOptions? = null,
   pfxTrustOptions: io.vertx.core.net.PfxOptions? = null,
+  poolSelection: PoolSelection? = null,
   port: Int? = null,
   proxyOptions: io.vertx.core.net.ProxyOptions? = null,
+  readBufferCompactionThreshold: Int? = null,
+  readDeduplication: Boolean? = null,
   receiveBufferSize: Int? = null,
   reconnectAttempts: Int? = null,
   reconnectInterval: Long? = null,
@@ -112,13 +160,17 @@ fun RedisOptions(
   sentinels: Iterable<String>? = null,
   soLinger: Int? = null,
   ssl: Boolean? = null,
+  streamingThreshold: Int? = null,
   tcpKeepAlive: Boolean? = null,
   tcpNoDelay: Boolean? = null,
   trafficClass: Int? = null,
   trustAll: Boolean? = null,
   trustStoreOptions: io.vertx.core.net.JksOptions? = null,
   useAlpn: Boolean? = null,
-  usePooledBuffers: Boolean? = null): RedisOptions = io.vertx.redis.RedisOptions().apply {
+  usePooledBuffers: Boolean? = null,
+  writeCoalescing: Boolean? = null,
+  writeCoalescingThreshold: Int? = null,
+  zeroCopyThreshold: Int? = null): RedisOptions = io.vertx.redis.RedisOptions().apply {
 
   if (address != null) {
     this.setAddress(address)
@@ -129,6 +181,15 @@ fun RedisOptions(
   if (binary != null) {
     this.setBinary(binary)
   }
+  if (circuitBreakerThreshold != null) {
+    this.setCircuitBreakerThreshold(circuitBreakerThreshold)
+  }
+  if (commandCoalescing != null) {
+    this.setCommandCoalescing(commandCoalescing)
+  }
+  if (commandTimeout != null) {
+    this.setCommandTimeout(commandTimeout)
+  }
   if (connectTimeout != null) {
     this.setConnectTimeout(connectTimeout)
   }
@@ -142,6 +203,12 @@ fun RedisOptions(
       this.addCrlValue(item)
     }
   }
+  if (domainSocketAddress != null) {
+    this.setDomainSocketAddress(domainSocketAddress)
+  }
+  if (eagerConnect != null) {
+    this.setEagerConnect(eagerConnect)
+  }
   if (enabledCipherSuites != null) {
     for (item in enabledCipherSuites) {
       this.addEnabledCipherSuite(item)
@@ -155,6 +222,9 @@ fun RedisOptions(
   if (encoding != null) {
     this.setEncoding(encoding)
   }
+  if (eventLoopAffinity != null) {
+    this.setEventLoopAffinity(eventLoopAffinity)
+  }
   if (host != null) {
     this.setHost(host)
   }
@@ -179,12 +249,47 @@ fun RedisOptions(
   if (masterName != null) {
     this.setMasterName(masterName)
   }
+  if (maxBlockingPoolSize != null) {
+    this.setMaxBlockingPoolSize(maxBlockingPoolSize)
+  }
+  if (maxInFlightCommands != null) {
+    this.setMaxInFlightCommands(maxInFlightCommands)
+  }
+  if (maxPoolSize != null) {
+    this.setMaxPoolSize(maxPoolSize)
+  }
+  if (maxReconnectInterval != null) {
+    this.setMaxReconnectInterval(maxReconnectInterval)
+  }
   if (metricsName != null) {
     this.setMetricsName(metricsName)
   }
+  if (nearCacheEviction != null) {
+    this.setNearCacheEviction(nearCacheEviction)
+  }
+  if (nearCacheInvalidation != null) {
+    this.setNearCacheInvalidation(nearCacheInvalidation)
+  }
+  if (nearCacheMaxSize != null) {
+    this.setNearCacheMaxSize(nearCacheMaxSize)
+  }
+  if (nearCachePrefixes != null) {
+    this.setNearCachePrefixes(nearCachePrefixes.toList())
+  }
+  if (nearCachePrefixs != null) {
+    for (item in nearCachePrefixs) {
+      this.addNearCachePrefix(item)
+    }
+  }
+  if (nearCacheTtl != null) {
+    this.setNearCacheTtl(nearCacheTtl)
+  }
   if (openSslEngineOptions != null) {
     this.setOpenSslEngineOptions(openSslEngineOptions)
   }
+  if (overflowPolicy != null) {
+    this.setOverflowPolicy(overflowPolicy)
+  }
   if (pemKeyCertOptions != null) {
     this.setPemKeyCertOptions(pemKeyCertOptions)
   }
@@ -197,12 +302,21 @@ fun RedisOptions(
   if (pfxTrustOptions != null) {
     this.setPfxTrustOptions(pfxTrustOptions)
   }
+  if (poolSelection != null) {
+    this.setPoolSelection(poolSelection)
+  }
   if (port != null) {
     this.setPort(port)
   }
   if (proxyOptions != null) {
     this.setProxyOptions(proxyOptions)
   }
+  if (readBufferCompactionThreshold != null) {
+    this.setReadBufferCompactionThreshold(readBufferCompactionThreshold)
+  }
+  if (readDeduplication != null) {
+    this.setReadDeduplication(readDeduplication)
+  }
   if (receiveBufferSize != null) {
     this.setReceiveBufferSize(receiveBufferSize)
   }
@@ -230,6 +344,9 @@ fun RedisOptions(
   if (ssl != null) {
     this.setSsl(ssl)
   }
+  if (streamingThreshold != null) {
+    this.setStreamingThreshold(streamingThreshold)
+  }
   if (tcpKeepAlive != null) {
     this.setTcpKeepAlive(tcpKeepAlive)
   }
@@ -251,5 +368,14 @@ fun RedisOptions(
   if (usePooledBuffers != null) {
     this.setUsePooledBuffers(usePooledBuffers)
   }
+  if (writeCoalescing != null) {
+    this.setWriteCoalescing(writeCoalescing)
+  }
+  if (writeCoalescingThreshold != null) {
+    this.setWriteCoalescingThreshold(writeCoalescingThreshold)
+  }
+  if (zeroCopyThreshold != null) {
+    this.setZeroCopyThreshold(zeroCopyThreshold)
+  }
 }
 
@@ -8,13 +8,15 @@ import io.vertx.redis.op.ScanOptions
  *
  * @param count 
  * @param match 
+ * @param prefetch  Set whether a scan stream requests the next page while the current one is consumed, so the consumer does not wait for it. At most one page is fetched ahead, even while the stream is paused. Ignored by the commands that return a single page.
  *
  * <p/>
  * NOTE: This function has been automatically generated from the [io.vertx.redis.op.ScanOptions original] using Vert.x codegen.
  */
 fun ScanOptions(
   count: Int? = null,
-  match: String? = null): ScanOptions = io.vertx.redis.op.ScanOptions().apply {
+  match: String? = null,
+  prefetch: Boolean? = null): ScanOptions = io.vertx.redis.op.ScanOptions().apply {
 
   if (count != null) {
     this.setCount(count)
@@ -22,5 +24,8 @@ fun ScanOptions(
   if (match != null) {
     this.setMatch(match)
   }
+  if (prefetch != null) {
+    this.setPrefetch(prefetch)
+  }
 }
 
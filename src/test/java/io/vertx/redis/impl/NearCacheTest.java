@@ -0,0 +1,193 @@
+/**
+ * Copyright 2015 Red Hat, Inc.
+ * <p>
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * and Apache License v2.0 which accompanies this distribution.
+ * <p>
+ * The Eclipse Public License is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * <p>
+ * The Apache License v2.0 is available at
+ * http://www.opensource.org/licenses/apache2.0.php
+ * <p>
+ * You may elect to redistribute this code under either of these licenses.
+ */
+package io.vertx.redis.impl;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.redis.NearCacheEviction;
+import io.vertx.redis.RedisOptions;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the near cache without a server, the time is given by a fake clock.
+ */
+public class NearCacheTest {
+
+  // an entry of a two characters key and a one character value
+  private static final long ENTRY_SIZE = 64 + 2 * 2 + 2;
+
+  private final AtomicLong now = new AtomicLong();
+
+  private NearCache create(RedisOptions options) {
+    final NearCache cache = new NearCache(options, now::get);
+    cache.enable();
+    return cache;
+  }
+
+  private static void read(NearCache cache, String key, String field, String value) {
+    final Handler<AsyncResult<String>> handler = cache.fill(key, field, null);
+
+    if (handler != null) {
+      handler.handle(Future.succeededFuture(value));
+    }
+  }
+
+  private static String cached(NearCache cache, String key) {
+    final AtomicReference<String> value = new AtomicReference<>();
+    return cache.get(key, reply -> value.set(reply.result())) ? value.get() : null;
+  }
+
+  @Test
+  public void testHit() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(1024));
+
+    assertNull(cached(cache, "k1"));
+    read(cache, "k1", null, "v");
+    assertEquals("v", cached(cache, "k1"));
+
+    read(cache, "h1", "f", "v");
+    assertTrue(cache.get("h1", "f", null));
+    assertFalse(cache.get("h1", "g", null));
+    // a hash field is not the value of the key
+    assertFalse(cache.get("h1", null));
+  }
+
+  @Test
+  public void testDisabled() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(1024));
+
+    read(cache, "k1", null, "v");
+    cache.disable();
+
+    // dropped, and not kept while disabled
+    assertNull(cached(cache, "k1"));
+    read(cache, "k1", null, "v");
+    assertNull(cached(cache, "k1"));
+
+    cache.enable();
+    read(cache, "k1", null, "v");
+    assertEquals("v", cached(cache, "k1"));
+  }
+
+  @Test
+  public void testInvalidatedWhileInFlight() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(1024));
+    final Handler<AsyncResult<String>> handler = cache.fill("k1", null, null);
+
+    // the reply may predate the change
+    cache.invalidate("k1");
+    handler.handle(Future.succeededFuture("v"));
+    assertNull(cached(cache, "k1"));
+
+    // the next read is kept
+    read(cache, "k1", null, "v");
+    assertEquals("v", cached(cache, "k1"));
+  }
+
+  @Test
+  public void testInvalidateWrittenKeys() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(1024));
+
+    for (String key : Arrays.asList("k1", "k2", "k3", "v1")) {
+      read(cache, key, null, "v");
+    }
+
+    // the value is not a key
+    cache.invalidate(RedisCommand.SET, Arrays.asList("k1", "v1"));
+    assertNull(cached(cache, "k1"));
+    assertEquals("v", cached(cache, "v1"));
+
+    cache.invalidate(RedisCommand.MSET, Arrays.asList("k2", "k3", "v1", "k3"));
+    assertNull(cached(cache, "k2"));
+    assertNull(cached(cache, "v1"));
+    assertEquals("v", cached(cache, "k3"));
+
+    // the number of keys is not a number, the server fails the command
+    cache.invalidate(RedisCommand.EVAL, Arrays.asList("return 1", "k3", "k3"));
+    assertEquals("v", cached(cache, "k3"));
+
+    // names no key
+    cache.invalidate(RedisCommand.PING, Collections.singletonList("k3"));
+    assertEquals("v", cached(cache, "k3"));
+
+    cache.invalidate(RedisCommand.FLUSHDB, null);
+    assertNull(cached(cache, "k3"));
+  }
+
+  @Test
+  public void testPrefixes() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(1024).addNearCachePrefix("p:"));
+
+    read(cache, "p:1", null, "v");
+    read(cache, "q:1", null, "v");
+
+    assertEquals("v", cached(cache, "p:1"));
+    assertNull(cached(cache, "q:1"));
+  }
+
+  @Test
+  public void testLruEviction() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(2 * ENTRY_SIZE).setNearCacheEviction(NearCacheEviction.LRU));
+
+    read(cache, "k1", null, "v");
+    read(cache, "k2", null, "v");
+    // k2 is now the least recently used
+    assertEquals("v", cached(cache, "k1"));
+
+    read(cache, "k3", null, "v");
+    assertEquals("v", cached(cache, "k1"));
+    assertNull(cached(cache, "k2"));
+    assertEquals("v", cached(cache, "k3"));
+  }
+
+  @Test
+  public void testLfuEviction() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(2 * ENTRY_SIZE).setNearCacheEviction(NearCacheEviction.LFU));
+
+    read(cache, "k1", null, "v");
+    read(cache, "k2", null, "v");
+    for (int i = 0; i < 3; i++) {
+      cached(cache, "k1");
+    }
+    cached(cache, "k2");
+
+    read(cache, "k3", null, "v");
+    assertEquals("v", cached(cache, "k1"));
+    assertNull(cached(cache, "k2"));
+    assertEquals("v", cached(cache, "k3"));
+  }
+
+  @Test
+  public void testTtl() {
+    final NearCache cache = create(new RedisOptions().setNearCacheMaxSize(1024).setNearCacheTtl(100));
+
+    read(cache, "k1", null, "v");
+
+    now.set(100);
+    assertEquals("v", cached(cache, "k1"));
+
+    now.set(101);
+    assertNull(cached(cache, "k1"));
+  }
+}
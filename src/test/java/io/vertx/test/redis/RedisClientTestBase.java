@@ -15,12 +15,24 @@
  */
 package io.vertx.test.redis;
 
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.redis.NearCacheInvalidation;
+import io.vertx.redis.OverflowPolicy;
+import io.vertx.redis.PoolSelection;
+import io.vertx.redis.RedisBatch;
 import io.vertx.redis.RedisClient;
 import io.vertx.redis.RedisOptions;
 import io.vertx.redis.RedisTransaction;
+import io.vertx.redis.ReplyDecoder;
 import io.vertx.redis.op.*;
 import io.vertx.test.core.VertxTestBase;
 import org.junit.AfterClass;
@@ -34,6 +46,9 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This test relies on a Redis server, by default it will start and stop a Redis server unless
@@ -994,6 +1009,30 @@ public abstract class RedisClientTestBase extends VertxTestBase {
     await();
   }
 
+  @Test
+  public void testHgetallAs() {
+    final String myhash = makeKey();
+
+    redis.hmset(myhash, new JsonObject().put("field1", "Hello").put("field2", "World"), reply0 -> {
+      assertTrue(reply0.succeeded());
+
+      redis.hgetallAs(myhash, ReplyDecoder.stringMap(), reply1 -> {
+        assertTrue(reply1.succeeded());
+        Map<String, String> map = reply1.result();
+        assertEquals(2, map.size());
+        assertEquals("Hello", map.get("field1"));
+        assertEquals("World", map.get("field2"));
+
+        redis.hgetallAs(makeKey(), ReplyDecoder.stringMap(), reply2 -> {
+          assertTrue(reply2.succeeded());
+          assertTrue(reply2.result().isEmpty());
+          testComplete();
+        });
+      });
+    });
+    await();
+  }
+
   @Test
   public void testHincrby() {
     final String myhash = makeKey();
@@ -2284,6 +2323,65 @@ public abstract class RedisClientTestBase extends VertxTestBase {
     await();
   }
 
+  @Test
+  public void testSelectWithPool() {
+    final String key = makeKey();
+    final RedisOptions options = getConfig().setMaxPoolSize(3).setSelect(0);
+    final RedisClient rdx = RedisClient.create(vertx, options);
+    final AtomicInteger found = new AtomicInteger();
+
+    rdx.select(2, onSuccess(selected -> rdx.set(key, "value", onSuccess(set -> {
+      // spread over all the connections, they all use the selected database
+      for (int i = 0; i < 6; i++) {
+        rdx.get(key, onSuccess(value -> {
+          assertEquals("value", value);
+
+          if (found.incrementAndGet() == 6) {
+            // the options of the client were copied
+            assertEquals(Integer.valueOf(0), options.getSelect());
+            rdx.select(0, onSuccess(v -> rdx.get(key, onSuccess(other -> {
+              assertNull(other);
+              rdx.close(v1 -> testComplete());
+            }))));
+          }
+        }));
+      }
+    }))));
+    await();
+  }
+
+  @Test
+  public void testSelectInTransaction() {
+    final String key = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig());
+    final RedisTransaction transaction = rdx.transaction();
+
+    // a single connection, the transaction changes its database
+    transaction.multi(onSuccess(multi -> {
+      transaction.select(1, onSuccess(queued -> assertEquals("QUEUED", queued)));
+      transaction.set(key, "value", onSuccess(queued -> assertEquals("QUEUED", queued)));
+      transaction.exec(onSuccess(replies -> redis.get(key, onSuccess(other -> {
+        assertNull(other);
+        rdx.get(key, onSuccess(value -> {
+          assertEquals("value", value);
+          rdx.del(key, onSuccess(v -> rdx.close(v1 -> testComplete())));
+        }));
+      }))));
+    }));
+    await();
+  }
+
+  @Test
+  public void testSelectInTransactionWithPool() {
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setMaxPoolSize(2));
+
+    rdx.transaction().select(1, reply -> {
+      assertTrue(reply.failed());
+      rdx.close(v -> testComplete());
+    });
+    await();
+  }
+
   @Test
   public void testSet() {
     final String mykey = makeKey();
@@ -3267,6 +3365,57 @@ public abstract class RedisClientTestBase extends VertxTestBase {
     await();
   }
 
+  @Test
+  public void testSscanStream() {
+    final String key = makeKey();
+    final List<String> members = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      members.add("member" + i);
+    }
+    redis.saddMany(key, members, onSuccess(added -> {
+      final Set<String> received = new HashSet<>();
+      final ReadStream<String> stream = redis.sscanStream(key, new ScanOptions().setCount(20).setPrefetch(true));
+
+      stream.exceptionHandler(this::fail);
+      stream.endHandler(v -> {
+        assertEquals(new HashSet<>(members), received);
+        testComplete();
+      });
+      stream.handler(member -> {
+        received.add(member);
+        // a slow consumer
+        if (received.size() % 50 == 0) {
+          stream.pause();
+          vertx.setTimer(5, id -> stream.resume());
+        }
+      });
+    }));
+    await();
+  }
+
+  @Test
+  public void testScanStream() {
+    final String prefix = makeKey() + ":";
+    final List<String> keys = new ArrayList<>();
+    final JsonObject values = new JsonObject();
+    for (int i = 0; i < 200; i++) {
+      keys.add(prefix + i);
+      values.put(prefix + i, "value" + i);
+    }
+    redis.msetnx(values, onSuccess(set -> {
+      final Set<String> received = new HashSet<>();
+
+      redis.scanStream(new ScanOptions().setMatch(prefix + "*").setCount(50))
+        .exceptionHandler(this::fail)
+        .endHandler(v -> {
+          assertEquals(new HashSet<>(keys), received);
+          testComplete();
+        })
+        .handler(received::add);
+    }));
+    await();
+  }
+
   // redis-embedded version of redis does not support HSCAN
   @Test
   @Category(RedisPost28Tests.class)
@@ -3413,4 +3562,942 @@ public abstract class RedisClientTestBase extends VertxTestBase {
     });
     await();
   }
+
+  @Test
+  public void testGetStream() {
+    final String key = makeKey();
+    final byte[] value = new byte[256];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte) i;
+    }
+    redis.setBinary(key, Buffer.buffer(value), reply0 -> {
+      assertTrue(reply0.succeeded());
+      redis.getStream(key, reply1 -> {
+        assertTrue(String.valueOf(reply1.cause()), reply1.succeeded());
+        final Buffer received = Buffer.buffer();
+        reply1.result()
+          .handler(received::appendBuffer)
+          .endHandler(v -> {
+            assertArrayEquals(value, received.getBytes());
+            redis.getStream(makeKey(), reply2 -> {
+              assertTrue(reply2.succeeded());
+              assertNull(reply2.result());
+              testComplete();
+            });
+          });
+      });
+    });
+    await();
+  }
+
+  @Test
+  public void testGetStreamLargeValue() {
+    final String key = makeKey();
+    final byte[] value = new byte[1024 * 1024];
+    for (int i = 0; i < value.length; i++) {
+      value[i] = (byte) i;
+    }
+    redis.setBinary(key, Buffer.buffer(value), reply0 -> {
+      assertTrue(reply0.succeeded());
+      redis.getStream(key, reply1 -> {
+        assertTrue(String.valueOf(reply1.cause()), reply1.succeeded());
+        final ReadStream<Buffer> stream = reply1.result();
+        final Buffer received = Buffer.buffer();
+        stream
+          .handler(chunk -> {
+            received.appendBuffer(chunk);
+            // pause after every chunk to exercise the backpressure
+            stream.pause();
+            vertx.setTimer(1, t -> stream.resume());
+          })
+          .endHandler(v -> {
+            assertArrayEquals(value, received.getBytes());
+            testComplete();
+          });
+      });
+      // pipelined behind the streamed reply
+      redis.ping(reply2 -> assertTrue(reply2.succeeded()));
+    });
+    await();
+  }
+
+  @Test
+  public void testZrangeWithOptionsAs() {
+    final String key = makeKey();
+    final Map<String, Double> values = new HashMap<>();
+    values.put("one", 1.0);
+    values.put("two", 2.5);
+    values.put("three", -3.0);
+
+    redis.zaddMany(key, values, reply0 -> {
+      assertTrue(reply0.succeeded());
+
+      redis.zrangeWithOptionsAs(key, 0, -1, RangeOptions.WITHSCORES, ReplyDecoder.scoreMap(), reply1 -> {
+        assertTrue(reply1.succeeded());
+        assertEquals(Arrays.asList("three", "one", "two"), new ArrayList<>(reply1.result().keySet()));
+        assertEquals(-3.0, reply1.result().get("three"), 0.0);
+        assertEquals(2.5, reply1.result().get("two"), 0.0);
+
+        redis.zrangeWithOptionsAs(key, 0, -1, RangeOptions.NONE, ReplyDecoder.doubleArray(), reply2 -> {
+          // members are not numbers
+          assertTrue(reply2.failed());
+
+          // the connection is still usable after a failed decoder
+          redis.zrangeWithOptionsAs(key, 0, -1, RangeOptions.WITHSCORES, ReplyDecoder.bufferList(), reply3 -> {
+            assertTrue(reply3.succeeded());
+            assertEquals(6, reply3.result().size());
+            assertEquals("three", reply3.result().get(0).toString());
+            testComplete();
+          });
+        });
+      });
+    });
+    await();
+  }
+
+  @Test
+  public void testLrangeAsAndMgetManyAs() {
+    final String list = makeKey();
+    final String key1 = makeKey();
+    final String key2 = makeKey();
+
+    redis.rpushMany(list, toList("1", "-20", "300"), reply0 -> {
+      assertTrue(reply0.succeeded());
+
+      redis.lrangeAs(list, 0, -1, ReplyDecoder.longArray(), reply1 -> {
+        assertTrue(reply1.succeeded());
+        assertArrayEquals(new long[]{1, -20, 300}, reply1.result());
+
+        redis.set(key1, "value1", reply2 -> {
+          assertTrue(reply2.succeeded());
+
+          redis.mgetManyAs(toList(key1, key2), ReplyDecoder.bufferList(), reply3 -> {
+            assertTrue(reply3.succeeded());
+            assertEquals(2, reply3.result().size());
+            assertEquals("value1", reply3.result().get(0).toString());
+            assertNull(reply3.result().get(1));
+            testComplete();
+          });
+        });
+      });
+    });
+    await();
+  }
+
+  @Test
+  public void testWriteCoalescing() {
+    final String key = makeKey();
+    final int count = 1000;
+    // small enough to also flush before the end of the tick
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setWriteCoalescing(true).setWriteCoalescingThreshold(1024));
+    final long[] expected = {1};
+
+    for (int i = 0; i < count; i++) {
+      rdx.incr(key, reply -> {
+        assertTrue(reply.succeeded());
+        // replies are received in the order the commands were issued
+        assertEquals(expected[0]++, reply.result().longValue());
+
+        if (reply.result() == count) {
+          rdx.close(v -> testComplete());
+        }
+      });
+    }
+    await();
+  }
+
+  @Test
+  public void testConnectionPoolRoundRobin() {
+    testConnectionPool(PoolSelection.ROUND_ROBIN);
+  }
+
+  @Test
+  public void testConnectionPoolLeastOutstanding() {
+    testConnectionPool(PoolSelection.LEAST_OUTSTANDING);
+  }
+
+  private void testConnectionPool(PoolSelection selection) {
+    final String key = makeKey();
+    final int count = 1000;
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setMaxPoolSize(4).setPoolSelection(selection));
+    final Set<Long> results = new HashSet<>();
+
+    rdx.clientSetname("pooled", reply0 -> {
+      assertTrue(reply0.succeeded());
+
+      for (int i = 0; i < count; i++) {
+        rdx.incr(key, reply -> {
+          assertTrue(reply.succeeded());
+          // replies of different connections are not ordered, but each one is received once
+          assertTrue(results.add(reply.result()));
+
+          if (results.size() == count) {
+            assertTrue(results.contains((long) count));
+
+            rdx.clientList(reply1 -> {
+              assertTrue(reply1.succeeded());
+              // every connection of the pool was used, only the primary one was named
+              assertEquals(1, reply1.result().split("name=pooled ").length - 1);
+              rdx.close(v -> testComplete());
+            });
+          }
+        });
+      }
+    });
+    await();
+  }
+
+  @Test
+  public void testConnectionPoolTransaction() {
+    final String key = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setMaxPoolSize(4));
+    final RedisTransaction transaction = rdx.transaction();
+
+    transaction.multi(reply0 -> {
+      assertTrue(reply0.succeeded());
+
+      // the commands of the transaction are all queued on the same connection
+      for (int i = 0; i < 10; i++) {
+        transaction.incr(key, reply -> {
+          assertTrue(reply.succeeded());
+          assertEquals("QUEUED", reply.result());
+        });
+      }
+
+      transaction.exec(reply1 -> {
+        assertTrue(reply1.succeeded());
+        assertEquals(10, reply1.result().size());
+        assertEquals(10L, reply1.result().getLong(9).longValue());
+        rdx.close(v -> testComplete());
+      });
+    });
+    await();
+  }
+
+  @Test
+  public void testEventLoopAffinity() {
+    final String key = makeKey();
+    final int instances = 4;
+    final int count = 100;
+    // the verticles run on both event loops, one of them gets its own connection
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setEventLoopAffinity(true).setMaxPoolSize(2));
+    // one step per verticle and one for the deployment
+    final AtomicInteger steps = new AtomicInteger(instances + 1);
+    final AtomicReference<String> deployment = new AtomicReference<>();
+
+    final Runnable check = () -> {
+      if (steps.decrementAndGet() == 0) {
+        rdx.get(key, reply -> {
+          assertTrue(reply.succeeded());
+          assertEquals(String.valueOf(instances * count), reply.result());
+
+          redis.clientList(onSuccess(before -> {
+            // the connections of the verticles are closed with them
+            vertx.undeploy(deployment.get(), onSuccess(v -> awaitClients(before.split("\n").length - 1, () ->
+              rdx.close(v1 -> testComplete()))));
+          }));
+        });
+      }
+    };
+
+    vertx.deployVerticle(() -> new AbstractVerticle() {
+      @Override
+      public void start() {
+        final Context ctx = Vertx.currentContext();
+        final int[] received = {0};
+
+        for (int i = 0; i < count; i++) {
+          rdx.incr(key, reply -> {
+            assertTrue(reply.succeeded());
+            // the reply is handled without leaving the context of the caller
+            assertSame(ctx, Vertx.currentContext());
+
+            if (++received[0] == count) {
+              check.run();
+            }
+          });
+        }
+      }
+    }, new DeploymentOptions().setInstances(instances), onSuccess(id -> {
+      deployment.set(id);
+      check.run();
+    }));
+    await();
+  }
+
+  private void awaitClients(int expected, Runnable next) {
+    redis.clientList(onSuccess(list -> {
+      if (list.split("\n").length <= expected) {
+        next.run();
+      } else {
+        vertx.setTimer(10, id -> awaitClients(expected, next));
+      }
+    }));
+  }
+
+  @Test
+  public void testBlockingCommandsDoNotDelayOthers() {
+    final String list1 = makeKey();
+    final String list2 = makeKey();
+    final String key = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setMaxBlockingPoolSize(2));
+    final AtomicInteger popped = new AtomicInteger();
+
+    // both block their own connection
+    rdx.blpop(list1, 10, reply -> {
+      assertTrue(reply.succeeded());
+      assertArrayEquals(toArray(list1, "a"), reply.result().getList().toArray());
+      if (popped.incrementAndGet() == 2) {
+        rdx.close(v -> testComplete());
+      }
+    });
+    rdx.brpop(list2, 10, reply -> {
+      assertTrue(reply.succeeded());
+      assertArrayEquals(toArray(list2, "b"), reply.result().getList().toArray());
+      if (popped.incrementAndGet() == 2) {
+        rdx.close(v -> testComplete());
+      }
+    });
+
+    rdx.set(key, "value", reply0 -> {
+      assertTrue(reply0.succeeded());
+
+      rdx.get(key, reply1 -> {
+        assertTrue(reply1.succeeded());
+        assertEquals("value", reply1.result());
+        assertEquals(0, popped.get());
+
+        rdx.rpush(list1, "a", reply2 -> {
+          assertTrue(reply2.succeeded());
+          rdx.rpush(list2, "b", reply3 -> assertTrue(reply3.succeeded()));
+        });
+      });
+    });
+    await();
+  }
+
+  @Test
+  public void testCloseWithBlockedCommand() {
+    final String list = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig());
+
+    rdx.blpop(list, 0, reply -> {
+      // failed by the close instead of blocking it
+      assertTrue(reply.failed());
+      testComplete();
+    });
+
+    rdx.ping(reply0 -> {
+      assertTrue(reply0.succeeded());
+      rdx.close(v -> {});
+    });
+    await();
+  }
+
+  @Test
+  public void testMaxInFlightCommandsFailFast() {
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setMaxInFlightCommands(10).setOverflowPolicy(OverflowPolicy.FAIL_FAST));
+    final AtomicInteger failed = new AtomicInteger();
+
+    vertx.runOnContext(v -> {
+      rdx.drainHandler(v1 -> {
+        assertFalse(rdx.writeQueueFull());
+        // the commands past the limit were failed right away
+        assertEquals(90, failed.get());
+        rdx.close(v2 -> testComplete());
+      });
+
+      for (int i = 0; i < 100; i++) {
+        rdx.ping(reply -> {
+          if (reply.failed()) {
+            assertEquals("Too many commands in flight", reply.cause().getMessage());
+            failed.incrementAndGet();
+          }
+        });
+      }
+      assertTrue(rdx.writeQueueFull());
+    });
+    await();
+  }
+
+  @Test
+  public void testMaxInFlightCommandsQueue() {
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setMaxInFlightCommands(10));
+    final AtomicInteger succeeded = new AtomicInteger();
+
+    vertx.runOnContext(v -> {
+      rdx.drainHandler(v1 -> {
+        assertFalse(rdx.writeQueueFull());
+        // the queue drained to half the limit
+        assertTrue(succeeded.get() >= 95);
+        rdx.close(v2 -> testComplete());
+      });
+
+      for (int i = 0; i < 100; i++) {
+        rdx.ping(reply -> {
+          assertTrue(reply.succeeded());
+          succeeded.incrementAndGet();
+        });
+      }
+      assertTrue(rdx.writeQueueFull());
+    });
+    await();
+  }
+
+  @Test
+  public void testBinaryArgumentCopied() {
+    final String key = makeKey();
+    final Buffer value = Buffer.buffer(new byte[128 * 1024]);
+
+    redis.setBinary(key, value, reply0 -> {
+      assertTrue(reply0.succeeded());
+      redis.getBinary(key, reply1 -> {
+        assertTrue(reply1.succeeded());
+        // without a zero copy threshold the argument was copied by the call
+        assertEquals(0, reply1.result().getByte(0));
+        testComplete();
+      });
+    });
+    value.setByte(0, (byte) 1);
+    await();
+  }
+
+  @Test
+  public void testCommandTimeout() {
+    // keeps the server busy for 500ms
+    final String script =
+      "local start = redis.call('time')\n" +
+      "local now = start\n" +
+      "while (now[1] - start[1]) * 1000000 + now[2] - start[2] < 500000 do\n" +
+      "  now = redis.call('time')\n" +
+      "end\n" +
+      "return 1";
+
+    final RedisClient rdx = RedisClient.create(vertx, getConfig());
+    final RedisClient slow = rdx.withTimeout(100);
+
+    slow.eval(script, Collections.emptyList(), Collections.emptyList(), reply0 -> {
+      assertTrue(reply0.failed());
+      assertEquals("Timeout waiting for a reply", reply0.cause().getMessage());
+
+      // the connection was opened again
+      rdx.ping(reply1 -> {
+        assertTrue(reply1.succeeded());
+        assertEquals("PONG", reply1.result());
+        rdx.close(v -> testComplete());
+      });
+    });
+    await();
+  }
+
+  @Test
+  public void testCircuitBreaker() {
+    // nothing listens on that port
+    final RedisOptions options = new RedisOptions()
+      .setPort(1)
+      .setMaxReconnectInterval(40)
+      .setCircuitBreakerThreshold(2);
+    options.setReconnectInterval(10);
+
+    final RedisClient rdx = RedisClient.create(vertx, options);
+
+    rdx.ping(reply0 -> {
+      // failed by the first attempt to connect
+      assertTrue(reply0.failed());
+      assertFalse("Connection unavailable".equals(reply0.cause().getMessage()));
+
+      vertx.setTimer(500, id -> rdx.ping(reply1 -> {
+        // the client gave up queueing commands
+        assertTrue(reply1.failed());
+        assertEquals("Connection unavailable", reply1.cause().getMessage());
+        rdx.close(v -> testComplete());
+      }));
+    });
+    await();
+  }
+
+  @Test
+  public void testCircuitBreakerProbeFailure() {
+    final Buffer ping = Buffer.buffer("*1\r\n$4\r\nPING\r\n");
+    final AtomicInteger connections = new AtomicInteger();
+    final NetServer server = vertx.createNetServer().connectHandler(so -> {
+      // the first connection finds the server loading its data
+      final Buffer reply = Buffer.buffer(connections.incrementAndGet() == 1 ? "-LOADING Redis is loading the dataset in memory\r\n" : "+PONG\r\n");
+      final AtomicInteger index = new AtomicInteger();
+
+      so.handler(buff -> {
+        final int val = index.addAndGet(buff.length());
+        index.set(val % ping.length());
+        for (int i = 0; i < val / ping.length(); i++) {
+          so.write(reply);
+        }
+      });
+    });
+    final RedisOptions options = new RedisOptions()
+      .setPort(2001)
+      .setMaxReconnectInterval(40)
+      .setCircuitBreakerThreshold(2);
+    options.setReconnectInterval(10);
+
+    final RedisClient rdx = RedisClient.create(vertx, options);
+
+    // nothing listens yet
+    rdx.ping(reply0 -> vertx.setTimer(500, id -> rdx.ping(reply1 -> {
+      assertTrue(reply1.failed());
+      assertEquals("Connection unavailable", reply1.cause().getMessage());
+
+      server.listen(2001, "localhost", onSuccess(s -> awaitPong(rdx, () -> {
+        // the failed probe closed the connection, the next one was probed again
+        assertEquals(2, connections.get());
+        rdx.close(v -> server.close(v1 -> testComplete()));
+      })));
+    })));
+    await();
+  }
+
+  private void awaitPong(RedisClient client, Runnable next) {
+    client.ping(reply -> {
+      if (reply.succeeded()) {
+        next.run();
+      } else {
+        vertx.setTimer(10, id -> awaitPong(client, next));
+      }
+    });
+  }
+
+  @Test
+  public void testEagerConnect() {
+    final String key = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setEagerConnect(true).setMaxPoolSize(2).setSelect(1));
+
+    rdx.connect(onSuccess(v -> {
+      rdx.set(key, "value", reply0 -> {
+        assertTrue(reply0.succeeded());
+
+        // the pipelined handshake selected the database
+        redis.exists(key, reply1 -> {
+          assertTrue(reply1.succeeded());
+          assertEquals(0, reply1.result().longValue());
+          rdx.close(v1 -> testComplete());
+        });
+      });
+    }));
+    await();
+  }
+
+  @Test
+  public void testConnectHandshakeFailure() {
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setAuth("secret").setSelect(1));
+
+    rdx.connect(ar -> {
+      // the server has no password
+      assertTrue(ar.failed());
+      rdx.close(v -> testComplete());
+    });
+    await();
+  }
+
+  @Test
+  public void testDomainSocketWithoutNativeTransport() {
+    assertFalse(vertx.isNativeTransportEnabled());
+
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setDomainSocketAddress("/tmp/redis.sock"));
+
+    rdx.ping(reply -> {
+      assertTrue(reply.failed());
+      assertEquals("Unix domain sockets require the native transport", reply.cause().getMessage());
+      rdx.close(v -> testComplete());
+    });
+    await();
+  }
+
+  @Test
+  public void testBatch() {
+    final String key = makeKey();
+    final String hash = makeKey();
+
+    redis.batch()
+      .add("SET", key, "value")
+      .add("hset", hash, "field", 1)
+      .add("GET", key)
+      .add("INCR", key)
+      .add("HGETALL", hash)
+      .add("GET", makeKey())
+      .send(reply -> {
+        assertTrue(reply.succeeded());
+
+        final List<Object> results = reply.result();
+        assertEquals(6, results.size());
+        assertEquals("OK", results.get(0));
+        assertEquals(1L, results.get(1));
+        assertEquals("value", results.get(2));
+        // only this entry failed
+        assertTrue(results.get(3) instanceof Throwable);
+        assertTrue(((Throwable) results.get(3)).getMessage().startsWith("ERR"));
+        assertEquals(new JsonArray().add("field").add("1"), results.get(4));
+        assertNull(results.get(5));
+        testComplete();
+      });
+    await();
+  }
+
+  @Test
+  public void testBatchRejectsBlockingCommands() {
+    try {
+      redis.batch().add("BLPOP", makeKey(), 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testBatchRejectsConnectionStateCommands() {
+    for (String command : Arrays.asList("CLIENT REPLY", "SELECT", "MULTI", "WATCH", "CLIENT SETNAME")) {
+      try {
+        redis.batch().add(command, "1");
+        fail(command);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testFireAndForget() {
+    final String key = makeKey();
+    final RedisClient fireAndForget = redis.fireAndForget();
+    final AtomicInteger written = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      fireAndForget.incr(key, reply -> {
+        assertTrue(reply.succeeded());
+        assertNull(reply.result());
+        written.incrementAndGet();
+      });
+    }
+
+    // a regular command after the fire and forget ones gets its reply
+    redis.get(key, reply -> {
+      assertTrue(reply.succeeded());
+      assertEquals("3", reply.result());
+      assertEquals(3, written.get());
+      testComplete();
+    });
+    await();
+  }
+
+  @Test
+  public void testClientReplySkip() {
+    final String key = makeKey();
+    final AtomicReference<Boolean> skipped = new AtomicReference<>();
+
+    redis.set(key, "value", reply -> assertTrue(reply.succeeded()));
+    // only Redis 3.2 supports it, older servers fail it
+    redis.clientReply(ClientReplyOptions.SKIP, reply -> skipped.set(reply.succeeded()));
+    redis.get(key, reply -> {
+      assertTrue(reply.succeeded());
+      assertEquals(skipped.get() ? null : "value", reply.result());
+    });
+    redis.get(key, reply -> {
+      assertTrue(reply.succeeded());
+      assertEquals("value", reply.result());
+      testComplete();
+    });
+    await();
+  }
+
+  @Test
+  public void testCommandCoalescing() {
+    final String key1 = makeKey();
+    final String key2 = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setCommandCoalescing(true));
+    final AtomicInteger replies = new AtomicInteger();
+
+    vertx.runOnContext(v -> {
+      // merged into a MSET
+      rdx.set(key1, "1", onSuccess(reply -> replies.incrementAndGet()));
+      rdx.set(key2, "2", onSuccess(reply -> replies.incrementAndGet()));
+      // not merged, the SETs are sent first
+      rdx.incr(key1, onSuccess(reply -> assertEquals(2, reply.longValue())));
+      // merged into a MGET
+      rdx.get(key1, onSuccess(reply -> assertEquals("2", reply)));
+      rdx.get(key2, onSuccess(reply -> assertEquals("2", reply)));
+      rdx.get(makeKey(), onSuccess(reply -> assertNull(reply)));
+      // merged into another MGET
+      rdx.getBinary(key1, onSuccess(reply -> assertEquals(Buffer.buffer("2"), reply)));
+      rdx.getBinary(key2, onSuccess(reply -> {
+        assertEquals(Buffer.buffer("2"), reply);
+        assertEquals(2, replies.get());
+        rdx.close(v1 -> testComplete());
+      }));
+    });
+    await();
+  }
+
+  @Test
+  public void testReadDeduplication() {
+    final String key = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setReadDeduplication(true));
+    final int count = 10;
+    final AtomicInteger replies = new AtomicInteger();
+
+    rdx.set(key, "value", onSuccess(v -> getCalls(before -> {
+      for (int i = 0; i < count; i++) {
+        rdx.get(key, onSuccess(reply -> {
+          assertEquals("value", reply);
+
+          if (replies.incrementAndGet() == count) {
+            // a single GET was sent
+            getCalls(after -> {
+              assertEquals(before + 1, after.longValue());
+              rdx.close(v1 -> testComplete());
+            });
+          }
+        }));
+      }
+    })));
+    await();
+  }
+
+  @Test
+  public void testReadDeduplicationReadsOwnWrites() {
+    final String key = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setReadDeduplication(true));
+
+    rdx.set(key, "1", onSuccess(v -> {
+      rdx.get(key, onSuccess(reply -> assertEquals("1", reply)));
+      rdx.set(key, "2", null);
+      // sent after the write, it does not share the reply of the first read
+      rdx.get(key, onSuccess(reply -> {
+        assertEquals("2", reply);
+        rdx.close(v1 -> testComplete());
+      }));
+    }));
+    await();
+  }
+
+  @Test
+  public void testNearCacheWithoutTracking() {
+    final String key = makeKey();
+    final String hash = makeKey();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setNearCacheMaxSize(1024 * 1024));
+
+    // the embedded server has no client side caching, the reads are sent to it
+    rdx.set(key, "1", onSuccess(v0 -> rdx.get(key, onSuccess(reply0 -> {
+      assertEquals("1", reply0);
+      rdx.set(key, "2", onSuccess(v1 -> rdx.get(key, onSuccess(reply1 -> {
+        assertEquals("2", reply1);
+        rdx.hset(hash, "field", "3", onSuccess(v2 -> rdx.hget(hash, "field", onSuccess(reply2 -> {
+          assertEquals("3", reply2);
+          rdx.close(v3 -> testComplete());
+        }))));
+      }))));
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheKeyspaceNotifications() {
+    final String prefix = makeKey() + ":";
+    final String key = prefix + "key";
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.set(key, "1", onSuccess(v1 -> {
+      // served locally once the notifications are subscribed
+      awaitCached(rdx, key, "1", () -> {
+        // modified by another client, the notification evicts it
+        redis.set(key, "2", onSuccess(v2 -> awaitCached(rdx, key, "2", () -> {
+          redis.configSet("notify-keyspace-events", "", onSuccess(v3 -> rdx.close(v4 -> testComplete())));
+        })));
+      });
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheHitOnContext() {
+    final String prefix = makeKey() + ":";
+    final String key = prefix + "key";
+    final Context context = vertx.getOrCreateContext();
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.set(key, "1", onSuccess(v1 -> {
+      awaitCached(rdx, key, "1", () -> context.runOnContext(v2 -> {
+        final AtomicBoolean returned = new AtomicBoolean();
+
+        // a hit is handled like a reply: later, on the context of the caller
+        rdx.get(key, onSuccess(value -> {
+          assertEquals("1", value);
+          assertTrue(returned.get());
+          assertSame(context, Vertx.currentContext());
+          redis.configSet("notify-keyspace-events", "", onSuccess(v3 -> rdx.close(v4 -> testComplete())));
+        }));
+        returned.set(true);
+      }));
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheBatch() {
+    final String prefix = makeKey() + ":";
+    final String key = prefix + "key";
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.set(key, "1", onSuccess(v1 -> {
+      awaitCached(rdx, key, "1", () -> {
+        final RedisBatch batch = rdx.batch().add("SET", key, "2");
+
+        // the key is only invalidated once the batch is sent
+        awaitCached(rdx, key, "1", () -> {
+          batch.send(onSuccess(replies -> assertEquals("OK", replies.get(0))));
+          rdx.get(key, onSuccess(value -> {
+            assertEquals("2", value);
+            redis.configSet("notify-keyspace-events", "", onSuccess(v2 -> rdx.close(v3 -> testComplete())));
+          }));
+        });
+      });
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheEvalInvalidNumkeys() {
+    final RedisClient rdx = RedisClient.create(vertx, getConfig().setNearCacheMaxSize(1024 * 1024));
+
+    // the keys are not known, the error of the server is returned
+    rdx.batch().add("EVAL", "return 1", "one").send(onSuccess(replies -> {
+      assertTrue(replies.get(0) instanceof Throwable);
+      assertTrue(((Throwable) replies.get(0)).getMessage().startsWith("ERR"));
+      rdx.close(v -> testComplete());
+    }));
+    await();
+  }
+
+  @Test
+  public void testNearCacheFlush() {
+    final String prefix = makeKey() + ":";
+    final String key = prefix + "key";
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.set(key, "1", onSuccess(v1 -> {
+      awaitCached(rdx, key, "1", () -> {
+        // a flush notifies no key, the cache is cleared when it is sent
+        rdx.flushdb(onSuccess(v2 -> rdx.get(key, onSuccess(value -> {
+          assertNull(value);
+          redis.configSet("notify-keyspace-events", "", onSuccess(v3 -> rdx.close(v4 -> testComplete())));
+        }))));
+      });
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheKeyspaceNotificationsEvents() {
+    final String prefix = makeKey() + ":";
+    final String key = prefix + "key";
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.set(key, "1", onSuccess(v1 -> {
+      awaitCached(rdx, key, "1", () -> {
+        // deleted by another client
+        redis.del(key, onSuccess(v2 -> awaitEvicted(rdx, key, () -> rdx.set(key, "1", onSuccess(v3 -> {
+          awaitCached(rdx, key, "1", () -> {
+            // given a time to live by another client
+            redis.pexpire(key, 1, onSuccess(v4 -> awaitEvicted(rdx, key, () -> {
+              redis.configSet("notify-keyspace-events", "", onSuccess(v5 -> rdx.close(v6 -> testComplete())));
+            })));
+          });
+        })))));
+      });
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheKeyspaceNotificationsPatternPrefix() {
+    // the prefix is escaped in the pattern of the subscription
+    final String prefix = makeKey() + "[*?]:";
+    final String key = prefix + "key";
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.set(key, "1", onSuccess(v1 -> {
+      awaitCached(rdx, key, "1", () -> {
+        redis.set(key, "2", onSuccess(v2 -> awaitCached(rdx, key, "2", () -> {
+          redis.configSet("notify-keyspace-events", "", onSuccess(v3 -> rdx.close(v4 -> testComplete())));
+        })));
+      });
+    }))));
+    await();
+  }
+
+  @Test
+  public void testNearCacheKeyspaceNotificationsSelect() {
+    final String prefix = makeKey() + ":";
+    final String key = prefix + "key";
+    final RedisClient rdx = RedisClient.create(vertx, getConfig()
+      .setNearCacheMaxSize(1024 * 1024)
+      .setNearCacheInvalidation(NearCacheInvalidation.KEYSPACE_NOTIFICATIONS)
+      .addNearCachePrefix(prefix));
+    final RedisClient db1 = RedisClient.create(vertx, getConfig().setSelect(1));
+
+    redis.configSet("notify-keyspace-events", "KA", onSuccess(v0 -> rdx.select(1, onSuccess(v1 -> {
+      rdx.set(key, "1", onSuccess(v2 -> awaitCached(rdx, key, "1", () -> {
+        // the notifications follow the selected database
+        db1.set(key, "2", onSuccess(v3 -> awaitCached(rdx, key, "2", () -> {
+          db1.del(key, onSuccess(v4 -> {
+            redis.configSet("notify-keyspace-events", "", onSuccess(v5 -> rdx.close(v6 -> db1.close(v7 -> testComplete()))));
+          }));
+        })));
+      })));
+    }))));
+    await();
+  }
+
+  private void awaitCached(RedisClient client, String key, String expected, Runnable next) {
+    // a cached reply sends no GET
+    getCalls(before -> client.get(key, reply -> getCalls(after -> {
+      if (after == before.longValue() && expected.equals(reply.result())) {
+        next.run();
+      } else {
+        vertx.setTimer(10, id -> awaitCached(client, key, expected, next));
+      }
+    })));
+  }
+
+  private void awaitEvicted(RedisClient client, String key, Runnable next) {
+    getCalls(before -> client.get(key, reply -> getCalls(after -> {
+      if (after == before.longValue()) {
+        vertx.setTimer(10, id -> awaitEvicted(client, key, next));
+      } else {
+        next.run();
+      }
+    })));
+  }
+
+  private void getCalls(Handler<Long> handler) {
+    redis.infoSection("commandstats", onSuccess(info -> {
+      final String stats = info.getJsonObject("commandstats").getString("cmdstat_get", "calls=0,");
+      handler.handle(Long.parseLong(stats.substring("calls=".length(), stats.indexOf(','))));
+    }));
+  }
 }
@@ -15,18 +15,109 @@
  */
 package io.vertx.test.redis;
 
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import io.vertx.redis.impl.Command;
+import io.vertx.redis.impl.RedisCommand;
+import io.vertx.redis.impl.ResponseTransform;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
 /**
  * @author <a href="mailto:marko.strukelj@gmail.com">Marko Strukelj</a>
  */
 public class RedisEncodingTest {
 
   @Test
-  @Ignore
   public void testEncode() {
-    // TODO
+    final List<Object> args = Arrays.asList("key", "\u20ac", null, 7, -42L, Long.MIN_VALUE, 1000, 2.5, Buffer.buffer("buf"), new byte[]{1, 2});
+    final Command<Void> cmd = new Command<>(null, RedisCommand.CLIENT_KILL, args, StandardCharsets.UTF_8, ResponseTransform.NONE, Void.class);
+
+    final Buffer expected = Buffer.buffer()
+      .appendString("*12\r\n$6\r\nCLIENT\r\n$4\r\nKILL\r\n")
+      .appendString("$3\r\nkey\r\n")
+      .appendString("$3\r\n\u20ac\r\n")
+      .appendString("$0\r\n\r\n")
+      .appendString("$1\r\n7\r\n")
+      .appendString("$3\r\n-42\r\n")
+      .appendString("$20\r\n-9223372036854775808\r\n")
+      .appendString("$4\r\n1000\r\n")
+      .appendString("$3\r\n2.5\r\n")
+      .appendString("$3\r\nbuf\r\n")
+      .appendString("$2\r\n").appendBytes(new byte[]{1, 2}).appendString("\r\n");
+
+    assertEquals(expected, write(cmd));
+  }
+
+  @Test
+  public void testEncodeDouble() {
+    final List<Object> args = Arrays.asList(3.0, -3.0, 0.0, -0.0, 9999999.0, 1e7, 2.5, 0.001, Double.NaN, Double.POSITIVE_INFINITY, 4f, 0.5f);
+    final Command<Void> cmd = new Command<>(null, RedisCommand.CLIENT_KILL, args, StandardCharsets.UTF_8, ResponseTransform.NONE, Void.class);
+
+    // the whole numbers written without toString are the same
+    final Buffer expected = Buffer.buffer().appendString("*14\r\n$6\r\nCLIENT\r\n$4\r\nKILL\r\n");
+    for (Object arg : args) {
+      final String str = arg.toString();
+      expected.appendString("$" + str.length() + "\r\n" + str + "\r\n");
+    }
+
+    assertEquals(expected, write(cmd));
+  }
+
+  @Test
+  public void testEncodeByReference() {
+    final Buffer large = Buffer.buffer("0123456789");
+    final Command<Void> cmd = new Command<>(null, RedisCommand.SET, Arrays.asList("key", large), StandardCharsets.UTF_8, ResponseTransform.NONE, Void.class, 10);
+
+    // the argument is not copied, changes made before the command is written are sent
+    large.setByte(0, (byte) 'x');
+
+    assertEquals(Buffer.buffer("*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$10\r\nx123456789\r\n"), write(cmd));
+  }
+
+  private static Buffer write(Command<?> cmd) {
+    final Buffer written = Buffer.buffer();
+
+    cmd.writeTo(new WriteStream<Buffer>() {
+      @Override
+      public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+        return this;
+      }
+
+      @Override
+      public WriteStream<Buffer> write(Buffer data) {
+        written.appendBuffer(data);
+        return this;
+      }
+
+      @Override
+      public void end() {
+      }
+
+      @Override
+      public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+        return this;
+      }
+
+      @Override
+      public boolean writeQueueFull() {
+        return false;
+      }
+
+      @Override
+      public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+        return this;
+      }
+    });
+
+    return written;
   }
 
   @Test
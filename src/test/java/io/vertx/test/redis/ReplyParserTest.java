@@ -16,11 +16,13 @@
 package io.vertx.test.redis;
 
 import io.vertx.core.buffer.Buffer;
+import io.vertx.redis.impl.Reply;
 import io.vertx.redis.impl.ReplyParser;
 import io.vertx.test.core.VertxTestBase;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -59,6 +61,128 @@ public class ReplyParserTest extends VertxTestBase {
     await();
   }
 
+  @Test
+  public void testArrayParserByteByByte() {
+    String packet =
+      "*3\r\n" +
+        "$3\r\nfoo\r\n" +
+        "*2\r\n" +
+        ":1\r\n" +
+        "$-1\r\n" +
+        "+OK\r\n";
+
+    ReplyParser parser = new ReplyParser(reply -> {
+      assertTrue(reply.is('*'));
+      Reply[] data = (Reply[]) reply.data();
+      assertEquals(3, data.length);
+      assertEquals("foo", data[0].asType(String.class));
+      Reply[] nested = (Reply[]) data[1].data();
+      assertEquals(2, nested.length);
+      assertEquals(1L, (long) nested[0].asType(Long.class));
+      assertNull(nested[1].data());
+      assertEquals("OK", data[2].asType(String.class));
+      testComplete();
+    });
+
+    for (int i = 0; i < packet.length(); i++) {
+      parser.handle(Buffer.buffer().appendString(packet.substring(i, i + 1)));
+    }
+    await();
+  }
+
+  @Test
+  public void testIntegerParser() {
+    List<Long> expected = Arrays.asList(0L, -1L, 1234567890L, Long.MIN_VALUE, Long.MAX_VALUE);
+    AtomicInteger cnt = new AtomicInteger(0);
+
+    ReplyParser parser = new ReplyParser(reply -> {
+      assertTrue(reply.is(':'));
+      assertEquals(expected.get(cnt.get()), reply.asType(Long.class));
+      if (cnt.incrementAndGet() == expected.size()) {
+        testComplete();
+      }
+    });
+
+    List<String> parts = Arrays.asList(
+      ":0\r\n:-",
+      "1\r\n:12345",
+      "67890\r\n:" + Long.MIN_VALUE + "\r",
+      "\n:" + Long.MAX_VALUE + "\r\n"
+    );
+
+    for (String part : parts) {
+      parser.handle(Buffer.buffer().appendString(part));
+    }
+
+    await();
+  }
+
+  @Test
+  public void testBulkSplitAcrossPackets() {
+    AtomicInteger cnt = new AtomicInteger(0);
+
+    ReplyParser parser = new ReplyParser(reply -> {
+      switch (cnt.incrementAndGet()) {
+        case 1:
+          assertEquals("hello world", reply.asType(String.class));
+          break;
+        case 2:
+          assertEquals(42L, (long) reply.asType(Long.class));
+          testComplete();
+          break;
+      }
+    });
+
+    List<String> parts = Arrays.asList(
+      "$11\r",
+      "\nhello",
+      " wor",
+      "ld\r\n:4",
+      "2\r\n"
+    );
+
+    for (String part : parts) {
+      parser.handle(Buffer.buffer().appendString(part));
+    }
+
+    await();
+  }
+
+  @Test
+  public void testBulkSliceSpanningPackets() {
+    StringBuilder payload = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      payload.append(i % 10);
+    }
+
+    String packet = "$" + payload.length() + "\r\n" + payload + "\r\n+OK\r\n";
+    List<Reply> replies = new ArrayList<>();
+
+    // compact past a small threshold, the slice must survive the release of the components it was read from
+    ReplyParser parser = new ReplyParser(replies::add, 128);
+
+    for (int i = 0; i < packet.length(); i += 97) {
+      parser.handle(Buffer.buffer().appendString(packet.substring(i, Math.min(packet.length(), i + 97))));
+    }
+    assertEquals(2, replies.size());
+    Buffer bulk = replies.get(0).asType(Buffer.class);
+
+    // more replies, read and compacted after the slice was handed out
+    for (int i = 0; i < 100; i++) {
+      parser.handle(Buffer.buffer().appendString("$5\r\nxxxxx\r\n"));
+    }
+    assertEquals(102, replies.size());
+
+    assertEquals(payload.toString(), bulk.toString());
+    assertEquals("OK", replies.get(1).asType(String.class));
+    try {
+      bulk.appendString("x");
+      fail("bulk replies should be read-only");
+    } catch (RuntimeException e) {
+      // expected
+    }
+  }
+
   @Test
   @Ignore
   public void testCleanupInternalBuffer() {